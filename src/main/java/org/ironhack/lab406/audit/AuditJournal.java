@@ -0,0 +1,232 @@
+package org.ironhack.lab406.audit;
+
+import org.ironhack.lab406.enums.FsyncPolicy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal kept in fixed-size, memory-mapped segment files ({@code audit-<n>.seg}). An append is a copy
+ * into the mapped segment; when the pages reach the disk is up to the {@link FsyncPolicy}. Every record carries a
+ * CRC32, so a record torn by a crash ends its segment instead of being read back as garbage, and a reopened journal
+ * continues after the last intact record. Only the newest {@code maxSegments} segments are kept.
+ * <p>
+ * Record layout: {@code int size, int crc, long timestamp, byte action, int entityId, short tenantLength, tenant,
+ * short detailLength, detail}. {@code size} counts the bytes after the crc; segments are zero-filled, so a size of 0
+ * marks the end of the written part.
+ * <p>
+ * Records can only be decoded forward, so the journal keeps the offset of every
+ * {@value AuditJournalReader#CHECKPOINT_INTERVAL}th record of each segment in memory: {@link #recent} starts at the
+ * last of them instead of at the start of the segment.
+ */
+public class AuditJournal implements Closeable {
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+    static final int MIN_BODY_BYTES = Long.BYTES + Byte.BYTES + Integer.BYTES + Short.BYTES * 2;
+
+    private static final int MAX_TEXT_BYTES = 1024;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final CRC32 crc = new CRC32();
+
+    // Checkpoints of the segments before the current one, computed on first use for those found at startup
+    private final Map<Path, int[]> sealedCheckpoints = new ConcurrentHashMap<>();
+
+    private long segment;
+    private Path segmentPath;
+    private MappedByteBuffer buffer;
+    private boolean dirty;
+    private int[] checkpoints;
+    private int checkpointCount;
+    private int segmentRecords;
+
+    public AuditJournal(Path directory, int segmentBytes, int maxSegments, FsyncPolicy fsyncPolicy) throws IOException {
+        if (segmentBytes < HEADER_BYTES + MIN_BODY_BYTES + MAX_TEXT_BYTES * 2) {
+            throw new IllegalArgumentException("Audit segments must hold at least one record");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.fsyncPolicy = fsyncPolicy;
+
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Audit journal " + directory + " is already open");
+        }
+        lock = acquired;
+
+        List<Path> segments = AuditJournalReader.segments(directory);
+        if (segments.isEmpty()) {
+            open(1);
+        } else {
+            String last = segments.get(segments.size() - 1).getFileName().toString();
+            open(Long.parseLong(last.substring(SEGMENT_PREFIX.length(), last.length() - SEGMENT_SUFFIX.length())));
+            recover();
+        }
+    }
+
+    public synchronized void append(AuditRecord record) {
+        byte[] tenant = bytes(record.getTenant());
+        byte[] detail = bytes(record.getDetail());
+        int size = MIN_BODY_BYTES + tenant.length + detail.length;
+        if (buffer.remaining() < HEADER_BYTES + size) {
+            rotate();
+        }
+
+        int start = buffer.position();
+        checkpoint(start);
+        buffer.position(start + HEADER_BYTES);
+        buffer.putLong(record.getTimestamp())
+                .put(record.getAction().getCode())
+                .putInt(record.getEntityId())
+                .putShort((short) tenant.length).put(tenant)
+                .putShort((short) detail.length).put(detail);
+        crc.reset();
+        crc.update(buffer.slice(start + HEADER_BYTES, size));
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        // Size last: until it is set the record reads as the end of the segment
+        buffer.putInt(start, size);
+
+        if (fsyncPolicy == FsyncPolicy.EVERY_WRITE) {
+            buffer.force(start, HEADER_BYTES + size);
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Forces the records appended since the last flush to the disk.
+     */
+    public synchronized void flush() {
+        if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Up to {@code limit} records matching {@code filter}, newest first, read from the last checkpoint of each segment
+     * backwards.
+     */
+    public List<AuditRecord> recent(int limit, Predicate<AuditRecord> filter) {
+        return AuditJournalReader.recent(directory, limit, filter, this::checkpoints);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        lock.release();
+        lockChannel.close();
+    }
+
+    private void rotate() {
+        buffer.force();
+        dirty = false;
+        sealedCheckpoints.put(segmentPath, Arrays.copyOf(checkpoints, checkpointCount));
+        // The old mapping is released when the buffer is garbage collected
+        open(segment + 1);
+        List<Path> segments = AuditJournalReader.segments(directory);
+        try {
+            for (int i = 0; i < segments.size() - maxSegments; i++) {
+                Files.deleteIfExists(segments.get(i));
+                sealedCheckpoints.remove(segments.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void open(long number) {
+        Path path = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segment = number;
+        segmentPath = path;
+        checkpoints = new int[16];
+        checkpointCount = 0;
+        segmentRecords = 0;
+    }
+
+    private void checkpoint(int start) {
+        if (segmentRecords++ % AuditJournalReader.CHECKPOINT_INTERVAL != 0) {
+            return;
+        }
+        if (checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+        }
+        checkpoints[checkpointCount++] = start;
+    }
+
+    private int[] checkpoints(Path path) {
+        synchronized (this) {
+            if (path.equals(segmentPath)) {
+                return Arrays.copyOf(checkpoints, checkpointCount);
+            }
+        }
+        return sealedCheckpoints.computeIfAbsent(path, AuditJournalReader::checkpoints);
+    }
+
+    // Skips the intact records; a torn one is wiped so nothing after the new appends can be mistaken for a record
+    private void recover() {
+        int start = buffer.position();
+        while (AuditJournalReader.next(buffer, crc) != null) {
+            checkpoint(start);
+            start = buffer.position();
+        }
+        if (buffer.remaining() >= Integer.BYTES && buffer.getInt(buffer.position()) != 0) {
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        if (text == null) {
+            return new byte[0];
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_TEXT_BYTES) {
+            return bytes;
+        }
+        byte[] truncated = new byte[MAX_TEXT_BYTES];
+        System.arraycopy(bytes, 0, truncated, 0, MAX_TEXT_BYTES);
+        return truncated;
+    }
+}
@@ -0,0 +1,185 @@
+package org.ironhack.lab406.audit;
+
+import org.ironhack.lab406.enums.AuditAction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the segments of an {@link AuditJournal} through read-only mappings, so it can run next to the writer (or
+ * on a copy of the directory). A segment ends at its first empty or torn record.
+ */
+public final class AuditJournalReader {
+    static final int CHECKPOINT_INTERVAL = 256;
+
+    private AuditJournalReader() {
+    }
+
+    /**
+     * Every record, oldest first.
+     */
+    public static void forEach(Path directory, Consumer<AuditRecord> consumer) {
+        for (Path segment : segments(directory)) {
+            read(segment).forEach(consumer);
+        }
+    }
+
+    /**
+     * Up to {@code limit} records matching {@code filter}, newest first. Only reads as many segments as it needs.
+     */
+    public static List<AuditRecord> recent(Path directory, int limit, Predicate<AuditRecord> filter) {
+        return recent(directory, limit, filter, AuditJournalReader::checkpoints);
+    }
+
+    /**
+     * Like {@link #recent(Path, int, Predicate)}, with the {@link #checkpoints} of each segment from
+     * {@code checkpoints}, such as the ones an open journal keeps. Segments are read block by block from their end,
+     * so only the blocks holding the returned records are decoded.
+     */
+    static List<AuditRecord> recent(Path directory, int limit, Predicate<AuditRecord> filter, Function<Path, int[]> checkpoints) {
+        List<AuditRecord> recent = new ArrayList<>();
+        List<Path> segments = segments(directory);
+        for (int s = segments.size() - 1; s >= 0 && recent.size() < limit; s--) {
+            int[] offsets = checkpoints.apply(segments.get(s));
+            try (FileChannel channel = FileChannel.open(segments.get(s), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                CRC32 crc = new CRC32();
+                for (int b = offsets.length - 1; b >= 0 && recent.size() < limit; b--) {
+                    // The last block runs to the end of the written part, which may have grown since the checkpoint
+                    int end = b + 1 < offsets.length ? offsets[b + 1] : buffer.limit();
+                    List<AuditRecord> block = new ArrayList<>(CHECKPOINT_INTERVAL);
+                    buffer.position(offsets[b]);
+                    AuditRecord record;
+                    while (buffer.position() < end && (record = next(buffer, crc)) != null) {
+                        block.add(record);
+                    }
+                    for (int i = block.size() - 1; i >= 0 && recent.size() < limit; i--) {
+                        if (filter.test(block.get(i))) {
+                            recent.add(block.get(i));
+                        }
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // Rotated away while we were listing
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * Offsets of the first record and of every {@value #CHECKPOINT_INTERVAL}th one after it, found by following the
+     * record sizes without decoding the records.
+     */
+    static int[] checkpoints(Path segment) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int[] offsets = new int[16];
+            int count = 0;
+            int records = 0;
+            int position = 0;
+            while (buffer.limit() - position >= AuditJournal.HEADER_BYTES) {
+                int size = buffer.getInt(position);
+                if (size < AuditJournal.MIN_BODY_BYTES || size > buffer.limit() - position - AuditJournal.HEADER_BYTES) {
+                    break;
+                }
+                if (records++ % CHECKPOINT_INTERVAL == 0) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = position;
+                }
+                position += AuditJournal.HEADER_BYTES + size;
+            }
+            return Arrays.copyOf(offsets, count);
+        } catch (NoSuchFileException e) {
+            return new int[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static List<Path> segments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // Zero-padded sequence numbers sort by name
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(AuditJournal.SEGMENT_PREFIX) && name.endsWith(AuditJournal.SEGMENT_SUFFIX);
+            }).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static List<AuditRecord> read(Path segment) {
+        List<AuditRecord> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            AuditRecord record;
+            while ((record = next(buffer, crc)) != null) {
+                records.add(record);
+            }
+        } catch (NoSuchFileException e) {
+            // Rotated away while we were listing
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return records;
+    }
+
+    /**
+     * Decodes the record at the buffer's position and moves past it, or returns {@code null} and leaves the position
+     * alone at the end of the segment or at a record that was only partly written.
+     */
+    static AuditRecord next(ByteBuffer buffer, CRC32 crc) {
+        int start = buffer.position();
+        if (buffer.remaining() < AuditJournal.HEADER_BYTES) {
+            return null;
+        }
+        int size = buffer.getInt(start);
+        if (size < AuditJournal.MIN_BODY_BYTES || size > buffer.remaining() - AuditJournal.HEADER_BYTES) {
+            return null;
+        }
+        crc.reset();
+        crc.update(buffer.slice(start + AuditJournal.HEADER_BYTES, size));
+        if ((int) crc.getValue() != buffer.getInt(start + Integer.BYTES)) {
+            return null;
+        }
+
+        ByteBuffer body = buffer.slice(start + AuditJournal.HEADER_BYTES, size);
+        long timestamp = body.getLong();
+        AuditAction action = AuditAction.fromCode(body.get());
+        int entityId = body.getInt();
+        String tenant = text(body);
+        String detail = text(body);
+        buffer.position(start + AuditJournal.HEADER_BYTES + size);
+        return new AuditRecord(timestamp, action, entityId, tenant, detail);
+    }
+
+    private static String text(ByteBuffer body) {
+        byte[] bytes = new byte[Short.toUnsignedInt(body.getShort())];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,91 @@
+package org.ironhack.lab406.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.enums.AuditAction;
+import org.ironhack.lab406.enums.FsyncPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Audit trail of doctor and patient writes, kept in a local {@link AuditJournal} instead of the database so it
+ * doesn't add statements to the transactions it audits. A record is appended right before its transaction commits:
+ * a write that can't be audited fails and rolls back, and a transaction rolled back earlier leaves no trace. Should
+ * the commit itself fail after the append, a {@link AuditAction#WRITE_ROLLED_BACK} record for the same id follows.
+ * With {@code audit.fsync=EVERY_WRITE} the record is on disk before the commit; the default {@code PERIODIC} can
+ * lose the last {@code audit.fsync-interval-ms} of records in a crash of the machine.
+ */
+@Component
+public class AuditLog {
+    @Value("${audit.directory:audit}")
+    private String directory;
+
+    @Value("${audit.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    @Value("${audit.max-segments:64}")
+    private int maxSegments;
+
+    @Value("${audit.fsync:PERIODIC}")
+    private FsyncPolicy fsyncPolicy;
+
+    private AuditJournal journal;
+
+    @PostConstruct
+    void open() throws IOException {
+        journal = new AuditJournal(Path.of(directory), segmentBytes, maxSegments, fsyncPolicy);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        journal.close();
+    }
+
+    public void record(AuditAction action, int entityId, String detail) {
+        String tenant = TenantContext.get() == null ? TenantContext.DEFAULT_TENANT : TenantContext.get();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            journal.append(new AuditRecord(System.currentTimeMillis(), action, entityId, tenant, detail));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean appended;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                journal.append(new AuditRecord(System.currentTimeMillis(), action, entityId, tenant, detail));
+                appended = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (appended && status == STATUS_ROLLED_BACK) {
+                    journal.append(new AuditRecord(System.currentTimeMillis(), AuditAction.WRITE_ROLLED_BACK, entityId, tenant, action.name()));
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${audit.fsync-interval-ms:1000}")
+    public void flush() {
+        if (fsyncPolicy == FsyncPolicy.PERIODIC) {
+            journal.flush();
+        }
+    }
+
+    /**
+     * The newest {@code limit} records, optionally of one action and / or one doctor or patient id.
+     */
+    public List<AuditRecord> getRecent(int limit, Optional<AuditAction> action, Optional<Integer> entityId) {
+        return journal.recent(limit, record ->
+                action.map(a -> a == record.getAction()).orElse(true) && entityId.map(id -> id == record.getEntityId()).orElse(true));
+    }
+}
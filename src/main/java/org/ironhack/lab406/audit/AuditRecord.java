@@ -0,0 +1,39 @@
+package org.ironhack.lab406.audit;
+
+import org.ironhack.lab406.enums.AuditAction;
+
+public class AuditRecord {
+    private final long timestamp;
+    private final AuditAction action;
+    private final int entityId;
+    private final String tenant;
+    private final String detail;
+
+    public AuditRecord(long timestamp, AuditAction action, int entityId, String tenant, String detail) {
+        this.timestamp = timestamp;
+        this.action = action;
+        this.entityId = entityId;
+        this.tenant = tenant;
+        this.detail = detail;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public AuditAction getAction() {
+        return action;
+    }
+
+    public int getEntityId() {
+        return entityId;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+}
@@ -0,0 +1,32 @@
+package org.ironhack.lab406.audit;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Prints an audit journal, oldest record first, one tab-separated line per record:
+ * {@code timestamp action entityId hospital detail}.
+ * <pre>
+ * java -cp lab-4.06.jar -Dloader.main=org.ironhack.lab406.audit.AuditReplay \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher &lt;directory&gt; [since, ISO-8601 instant]
+ * </pre>
+ */
+public final class AuditReplay {
+
+    private AuditReplay() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: AuditReplay <directory> [since]");
+            System.exit(2);
+        }
+        long since = args.length == 2 ? Instant.parse(args[1]).toEpochMilli() : Long.MIN_VALUE;
+        AuditJournalReader.forEach(Path.of(args[0]), record -> {
+            if (record.getTimestamp() >= since) {
+                System.out.println(Instant.ofEpochMilli(record.getTimestamp()) + "\t" + record.getAction() + "\t" + record.getEntityId()
+                        + "\t" + record.getTenant() + "\t" + record.getDetail());
+            }
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package org.ironhack.lab406.config;
+
+import org.ironhack.lab406.service.ClockCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caches of the by-id reads. Spring Boot's simple cache manager never evicts, so every doctor and patient ever read
+ * would stay on the heap; these hold at most {@code cache.max-entries} entries each. Other {@code spring.cache.type}
+ * settings, such as {@code none} in the tests, keep Spring Boot's own cache manager.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.cache", name = "type", havingValue = "simple", matchIfMissing = true)
+    public CacheManager cacheManager(@Value("${cache.max-entries:10000}") long maxEntries) {
+        return new ConcurrentMapCacheManager() {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new BoundedCache(name, new ClockCache<>(maxEntries), isAllowNullValues());
+            }
+        };
+    }
+
+    /**
+     * Spring cache over a {@link ClockCache}, which is also its native cache.
+     */
+    static final class BoundedCache extends AbstractValueAdaptingCache {
+        private final String name;
+        private final ClockCache<Object, Object> store;
+
+        BoundedCache(String name, ClockCache<Object, Object> store, boolean allowNullValues) {
+            super(allowNullValues);
+            this.name = name;
+            this.store = store;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public ClockCache<Object, Object> getNativeCache() {
+            return store;
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            return store.get(key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            Object stored = store.get(key);
+            if (stored != null) {
+                return (T) fromStoreValue(stored);
+            }
+            try {
+                T value = valueLoader.call();
+                store.put(key, toStoreValue(value));
+                return value;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            store.put(key, toStoreValue(value));
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return toValueWrapper(store.putIfAbsent(key, toStoreValue(value)));
+        }
+
+        @Override
+        public void evict(Object key) {
+            store.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            store.clear();
+        }
+    }
+}
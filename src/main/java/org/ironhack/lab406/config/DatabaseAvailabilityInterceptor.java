@@ -0,0 +1,27 @@
+package org.ironhack.lab406.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.ironhack.lab406.service.ReadResilienceService;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Refuses writes with 503 while the database is known to be down, before the transaction waits for a connection.
+ */
+public class DatabaseAvailabilityInterceptor implements HandlerInterceptor {
+    private final ReadResilienceService readResilienceService;
+
+    public DatabaseAvailabilityInterceptor(ReadResilienceService readResilienceService) {
+        this.readResilienceService = readResilienceService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String method = request.getMethod();
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method) && !HttpMethod.OPTIONS.matches(method)) {
+            readResilienceService.ensureAvailable();
+        }
+        return true;
+    }
+}
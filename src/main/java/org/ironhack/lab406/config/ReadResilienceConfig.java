@@ -0,0 +1,24 @@
+package org.ironhack.lab406.config;
+
+import org.ironhack.lab406.service.ReadResilienceService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ReadResilienceConfig implements WebMvcConfigurer {
+    private final ReadResilienceService readResilienceService;
+
+    public ReadResilienceConfig(ReadResilienceService readResilienceService) {
+        this.readResilienceService = readResilienceService;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Runs after TenantInterceptor so the breaker of the requested hospital is checked; lookups are reads sent as POST
+        registry.addInterceptor(new DatabaseAvailabilityInterceptor(readResilienceService))
+                .addPathPatterns("/doctors/**", "/patients/**")
+                .excludePathPatterns("/doctors/lookup", "/patients/lookup")
+                .order(1);
+    }
+}
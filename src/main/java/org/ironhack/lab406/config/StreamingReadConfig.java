@@ -0,0 +1,68 @@
+package org.ironhack.lab406.config;
+
+import org.ironhack.lab406.monitoring.SqlObserver;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Executor of the asynchronous {@code /reactive} reads. A request waiting in the queue holds its HTTP connection but
+ * no container thread. {@code streaming.threads} bounds how many reads run at once, a stream until its last row is
+ * written, and {@code streaming.queue-size} how many can wait; past the queue, requests are refused with 503.
+ */
+@Configuration
+public class StreamingReadConfig implements WebMvcConfigurer, DisposableBean {
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final long timeoutMillis;
+
+    // Not a bean: an Executor bean would replace Spring Boot's applicationTaskExecutor
+    public StreamingReadConfig(@Value("${streaming.threads:16}") int threads, @Value("${streaming.queue-size:10000}") int queueSize,
+                               @Value("${streaming.timeout-ms:60000}") long timeoutMillis, SqlObserver sqlObserver) {
+        this.timeoutMillis = timeoutMillis;
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueSize);
+        executor.setThreadNamePrefix("stream-read-");
+        executor.setDaemon(true);
+        // The hospital, request (for response headers such as X-Data-Stale) and SQL trace follow the read onto the worker
+        executor.setTaskDecorator(task -> {
+            String tenant = TenantContext.get();
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            SqlObserver.Trace trace = sqlObserver.current();
+            return () -> {
+                TenantContext.set(tenant);
+                RequestContextHolder.setRequestAttributes(attributes);
+                sqlObserver.resume(trace);
+                try {
+                    task.run();
+                } finally {
+                    sqlObserver.end();
+                    RequestContextHolder.resetRequestAttributes();
+                    TenantContext.clear();
+                }
+            };
+        });
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many streaming reads in progress.");
+        });
+        executor.initialize();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(executor);
+        configurer.setDefaultTimeout(timeoutMillis);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,26 @@
+package org.ironhack.lab406.config;
+
+/**
+ * Hospital the current thread works for. {@code null} means the default database.
+ */
+public final class TenantContext {
+    public static final String HEADER = "X-Hospital-Id";
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String get() {
+        return CURRENT.get();
+    }
+
+    public static void set(String tenant) {
+        CURRENT.set(tenant);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,74 @@
+package org.ironhack.lab406.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One database and connection pool per hospital. Requests pick their hospital with the {@code X-Hospital-Id}
+ * header; requests without it, and background jobs, use {@code spring.datasource}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "tenants", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(TenantProperties.class)
+public class TenantDataSourceConfig implements WebMvcConfigurer {
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    private final TenantProperties tenantProperties;
+
+    public TenantDataSourceConfig(TenantProperties tenantProperties) {
+        this.tenantProperties = tenantProperties;
+    }
+
+    /**
+     * Every pool, the default one included, takes the {@code spring.datasource.hikari} settings, such as the
+     * connection timeout; a hospital's own {@code maximum-pool-size} overrides the shared one.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource defaultDataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind(HIKARI_PREFIX, Bindable.ofInstance(defaultDataSource));
+        defaultDataSource.setPoolName("tenant-" + TenantContext.DEFAULT_TENANT);
+
+        Map<Object, Object> targets = new HashMap<>();
+        tenantProperties.getDatasources().forEach((tenant, database) -> {
+            HikariDataSource dataSource = new HikariDataSource();
+            binder.bind(HIKARI_PREFIX, Bindable.ofInstance(dataSource));
+            dataSource.setPoolName("tenant-" + tenant);
+            dataSource.setJdbcUrl(database.getUrl());
+            dataSource.setUsername(database.getUsername());
+            dataSource.setPassword(database.getPassword());
+            if (database.getMaximumPoolSize() != null) {
+                dataSource.setMaximumPoolSize(database.getMaximumPoolSize());
+            }
+            targets.put(tenant, dataSource);
+        });
+
+        TenantRoutingDataSource routingDataSource = new TenantRoutingDataSource();
+        routingDataSource.setDefaultTargetDataSource(defaultDataSource);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setLenientFallback(false);
+        routingDataSource.afterPropertiesSet();
+        return routingDataSource;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new TenantInterceptor(tenantProperties.getDatasources().keySet()));
+    }
+}
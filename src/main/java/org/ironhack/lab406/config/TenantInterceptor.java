@@ -0,0 +1,40 @@
+package org.ironhack.lab406.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Set;
+
+public class TenantInterceptor implements AsyncHandlerInterceptor {
+    private final Set<String> tenants;
+
+    public TenantInterceptor(Set<String> tenants) {
+        this.tenants = tenants;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String tenant = request.getHeader(TenantContext.HEADER);
+        if (tenant != null) {
+            if (!tenants.contains(tenant)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown hospital.");
+            }
+            TenantContext.set(tenant);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        TenantContext.clear();
+    }
+
+    // An asynchronous request skips afterCompletion on this thread; the async dispatch sets the hospital again
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        TenantContext.clear();
+    }
+}
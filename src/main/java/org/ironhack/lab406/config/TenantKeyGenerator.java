@@ -0,0 +1,29 @@
+package org.ironhack.lab406.config;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Cache key made of the current hospital and the method arguments, so hospitals never see each other's entries.
+ */
+@Component("tenantKeyGenerator")
+public class TenantKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        return key(TenantContext.get(), params);
+    }
+
+    /**
+     * The key {@link #generate} gives a call with {@code params} in {@code tenant}, for evicting single entries.
+     */
+    public static Object key(String tenant, Object... params) {
+        Object[] elements = Arrays.copyOf(new Object[]{tenant}, params.length + 1);
+        System.arraycopy(params, 0, elements, 1, params.length);
+        return new SimpleKey(elements);
+    }
+}
@@ -0,0 +1,14 @@
+package org.ironhack.lab406.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections from the pool of the hospital in {@link TenantContext}, or the default pool when none is set.
+ */
+public class TenantRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TenantContext.get();
+    }
+}
@@ -0,0 +1,41 @@
+package org.ironhack.lab406.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate only generates the schema of the default database; this recreates it in every hospital database.
+ * Meant for local and test setups, where tenant databases are embedded and start empty.
+ */
+@Component
+@Order(0)
+@ConditionalOnProperty(prefix = "tenants", name = {"enabled", "initialize-schema"}, havingValue = "true")
+public class TenantSchemaInitializer implements ApplicationRunner {
+    private final EntityManagerFactory entityManagerFactory;
+    private final TenantProperties tenantProperties;
+
+    public TenantSchemaInitializer(EntityManagerFactory entityManagerFactory, TenantProperties tenantProperties) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.tenantProperties = tenantProperties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SchemaManager schemaManager = entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager();
+        for (String tenant : tenantProperties.getDatasources().keySet()) {
+            TenantContext.set(tenant);
+            try {
+                schemaManager.dropMappedObjects(false);
+                schemaManager.exportMappedObjects(false);
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.service.DoctorService;
+import org.ironhack.lab406.service.PatientService;
+import org.ironhack.lab406.service.TenantScatterGatherService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/admin/hospitals")
+@ConditionalOnProperty(prefix = "tenants", name = "enabled", havingValue = "true")
+public class AdminController {
+    @Autowired
+    private TenantScatterGatherService tenantScatterGatherService;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @GetMapping("/doctors")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, List<Doctor>> getDoctors(@RequestParam Optional<EmployeeStatus> status, @RequestParam Optional<String> department) {
+        return tenantScatterGatherService.forEachTenant(() -> doctorService.getDoctors(status, department));
+    }
+
+    @GetMapping("/patients")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, List<Patient>> getPatients() {
+        return tenantScatterGatherService.forEachTenant(patientService::getPatients);
+    }
+
+    @GetMapping("/patients/off-doctor")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, List<Patient>> getPatientsOfOffDoctors() {
+        return tenantScatterGatherService.forEachTenant(patientService::getByAdmittedByStatus);
+    }
+}
@@ -0,0 +1,47 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.controller.dto.AnalyticsSnapshotDTO;
+import org.ironhack.lab406.service.PatientAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/analytics/patients")
+public class AnalyticsController {
+    @Autowired
+    private PatientAnalyticsService patientAnalyticsService;
+
+    @GetMapping("/age-distribution")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Long> getAgeDistribution() {
+        return patientAnalyticsService.getAgeDistribution();
+    }
+
+    @GetMapping("/admissions-per-department")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Long> getAdmissionsPerDepartment() {
+        return patientAnalyticsService.getAdmissionsPerDepartment();
+    }
+
+    @GetMapping("/off-doctor-count")
+    @ResponseStatus(HttpStatus.OK)
+    public long getPatientsUnderOffDoctors() {
+        return patientAnalyticsService.getPatientsUnderOffDoctors();
+    }
+
+    @PostMapping("/snapshot")
+    @ResponseStatus(HttpStatus.OK)
+    public AnalyticsSnapshotDTO refreshSnapshot() {
+        patientAnalyticsService.refresh();
+        return patientAnalyticsService.getSnapshotStats();
+    }
+
+    @GetMapping("/snapshot")
+    @ResponseStatus(HttpStatus.OK)
+    public AnalyticsSnapshotDTO getSnapshot() {
+        return patientAnalyticsService.getSnapshotStats();
+    }
+}
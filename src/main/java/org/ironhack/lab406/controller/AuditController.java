@@ -0,0 +1,35 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.audit.AuditLog;
+import org.ironhack.lab406.audit.AuditRecord;
+import org.ironhack.lab406.enums.AuditAction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/admin/audit")
+public class AuditController {
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public List<AuditRecord> getRecent(@RequestParam Optional<AuditAction> action, @RequestParam Optional<Integer> entityId,
+                                       @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+        return auditLog.getRecent(limit, action, entityId);
+    }
+}
@@ -0,0 +1,34 @@
+package org.ironhack.lab406.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Liveness and readiness probes. Readiness turns {@code ACCEPTING_TRAFFIC} only once the application runners,
+ * including the warm-up, are done.
+ */
+@RestController
+@RequestMapping("/health")
+public class AvailabilityController {
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @GetMapping("/liveness")
+    public ResponseEntity<LivenessState> getLiveness() {
+        LivenessState state = applicationAvailability.getLivenessState();
+        return ResponseEntity.status(state == LivenessState.CORRECT ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(state);
+    }
+
+    @GetMapping("/readiness")
+    public ResponseEntity<ReadinessState> getReadiness() {
+        ReadinessState state = applicationAvailability.getReadinessState();
+        return ResponseEntity.status(state == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(state);
+    }
+}
@@ -0,0 +1,31 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.controller.dto.BootstrapReportDTO;
+import org.ironhack.lab406.service.BootstrapService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/admin/bootstrap")
+public class BootstrapController {
+    @Autowired
+    private BootstrapService bootstrapService;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public BootstrapReportDTO load(@RequestPart(required = false) MultipartFile doctors, @RequestPart(required = false) MultipartFile patients) {
+        if (doctors == null && patients == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A doctors and / or patients file is required.");
+        }
+        return bootstrapService.load(doctors, doctors == null ? null : doctors.getOriginalFilename(),
+                patients, patients == null ? null : patients.getOriginalFilename());
+    }
+}
@@ -1,8 +1,11 @@
 package org.ironhack.lab406.controller;
 
 import jakarta.validation.Valid;
+import org.ironhack.lab406.controller.dto.BatchResultDTO;
+import org.ironhack.lab406.controller.dto.ChangesDTO;
 import org.ironhack.lab406.controller.dto.DoctorDTO;
 import org.ironhack.lab406.controller.dto.DoctorDepartmentDTO;
+import org.ironhack.lab406.controller.dto.DoctorSearchDTO;
 import org.ironhack.lab406.controller.dto.DoctorStatusDTO;
 import org.ironhack.lab406.enums.EmployeeStatus;
 import org.ironhack.lab406.model.Doctor;
@@ -12,6 +15,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -27,12 +31,61 @@ public class DoctorController {
         return doctorService.getDoctors(status, department);
     }
 
+    @GetMapping(params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Map<String, Object>> getDoctorFields(@RequestParam Optional<EmployeeStatus> status, @RequestParam Optional<String> department,
+                                                     @RequestParam String fields) {
+        return doctorService.searchFields(fields, new DoctorSearchDTO(status.map(List::of).orElse(null), department.map(List::of).orElse(null), null));
+    }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public BatchResultDTO<Doctor> getByIds(@RequestParam List<Integer> ids) {
+        return doctorService.getDoctorsByIds(ids);
+    }
+
+    @GetMapping(params = {"ids", "fields"})
+    @ResponseStatus(HttpStatus.OK)
+    public BatchResultDTO<Map<String, Object>> getFieldsByIds(@RequestParam List<Integer> ids, @RequestParam String fields) {
+        return doctorService.getDoctorFieldsByIds(ids, fields);
+    }
+
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Doctor> search(DoctorSearchDTO doctorSearchDTO) {
+        return doctorService.search(doctorSearchDTO);
+    }
+
+    @GetMapping(value = "/search", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Map<String, Object>> searchFields(DoctorSearchDTO doctorSearchDTO, @RequestParam String fields) {
+        return doctorService.searchFields(fields, doctorSearchDTO);
+    }
+
+    @GetMapping("/changes")
+    @ResponseStatus(HttpStatus.OK)
+    public ChangesDTO<Doctor> getChanges(@RequestParam Optional<String> since) {
+        return doctorService.getChanges(since);
+    }
+
+    @PostMapping("/lookup")
+    @ResponseStatus(HttpStatus.OK)
+    public BatchResultDTO<Doctor> lookup(@RequestBody List<Integer> ids) {
+        return doctorService.getDoctorsByIds(ids);
+    }
+
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public Doctor getById(@PathVariable Integer id) {
         return doctorService.getDoctorById(id);
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> getFieldsById(@PathVariable Integer id, @RequestParam String fields) {
+        return doctorService.getDoctorFieldsById(id, fields);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Doctor store(@RequestBody @Valid DoctorDTO doctorDTO) {
@@ -0,0 +1,39 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.service.FlightRecordingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/admin/jfr")
+public class FlightRecorderController {
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+
+    @PostMapping("/start")
+    @ResponseStatus(HttpStatus.OK)
+    public String start(@RequestParam(defaultValue = "15") long maxAgeMinutes) {
+        return flightRecordingService.start(Duration.ofMinutes(maxAgeMinutes));
+    }
+
+    @GetMapping("/dump")
+    public ResponseEntity<StreamingResponseBody> dump() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"lab406.jfr\"")
+                .body(flightRecordingService.dump());
+    }
+
+    @PostMapping("/stop")
+    @ResponseStatus(HttpStatus.OK)
+    public String stop() {
+        return flightRecordingService.stop();
+    }
+}
@@ -0,0 +1,51 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.controller.dto.NormalizedPatientListDTO;
+import org.ironhack.lab406.model.Patient;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.List;
+
+/**
+ * Rewrites {@code List<Patient>} responses of {@link PatientController} into a {@link NormalizedPatientListDTO}
+ * when the client asks for it with {@code ?view=normalized} or {@code Accept: application/vnd.lab406.normalized+json}.
+ */
+@ControllerAdvice(assignableTypes = PatientController.class)
+public class NormalizedPatientListAdvice implements ResponseBodyAdvice<Object> {
+    public static final String VIEW_PARAMETER = "view";
+    public static final String NORMALIZED_VIEW = "normalized";
+    public static final MediaType NORMALIZED_JSON = MediaType.parseMediaType("application/vnd.lab406.normalized+json");
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        ResolvableType type = ResolvableType.forMethodParameter(returnType);
+        return List.class.isAssignableFrom(type.toClass()) && Patient.class.equals(type.getGeneric(0).resolve());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body instanceof List<?> && isNormalizedRequested(selectedContentType, request)) {
+            return NormalizedPatientListDTO.of((List<Patient>) body);
+        }
+        return body;
+    }
+
+    private boolean isNormalizedRequested(MediaType selectedContentType, ServerHttpRequest request) {
+        if (NORMALIZED_JSON.equalsTypeAndSubtype(selectedContentType)) {
+            return true;
+        }
+        return request instanceof ServletServerHttpRequest servletRequest
+                && NORMALIZED_VIEW.equals(servletRequest.getServletRequest().getParameter(VIEW_PARAMETER));
+    }
+}
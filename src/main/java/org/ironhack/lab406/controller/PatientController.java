@@ -1,7 +1,11 @@
 package org.ironhack.lab406.controller;
 
 import jakarta.validation.Valid;
+import org.ironhack.lab406.controller.dto.BatchResultDTO;
+import org.ironhack.lab406.controller.dto.ChangesDTO;
 import org.ironhack.lab406.controller.dto.PatientDTO;
+import org.ironhack.lab406.controller.dto.PatientSearchDTO;
+import org.ironhack.lab406.controller.dto.ReassignmentDTO;
 import org.ironhack.lab406.model.Patient;
 import org.ironhack.lab406.service.PatientService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +16,8 @@ import org.springframework.web.bind.annotation.*;
 import java.text.ParseException;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/patients")
@@ -25,36 +31,109 @@ public class PatientController {
         return patientService.getPatients();
     }
 
+    @GetMapping(params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Map<String, Object>> findAllFields(@RequestParam String fields) {
+        return patientService.searchFields(fields, new PatientSearchDTO());
+    }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public BatchResultDTO<Patient> findByIds(@RequestParam List<Integer> ids) {
+        return patientService.getPatientsByIds(ids);
+    }
+
+    @GetMapping(params = {"ids", "fields"})
+    @ResponseStatus(HttpStatus.OK)
+    public BatchResultDTO<Map<String, Object>> findFieldsByIds(@RequestParam List<Integer> ids, @RequestParam String fields) {
+        return patientService.getPatientFieldsByIds(ids, fields);
+    }
+
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Patient> search(PatientSearchDTO patientSearchDTO) {
+        return patientService.search(patientSearchDTO);
+    }
+
+    @GetMapping(value = "/search", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Map<String, Object>> searchFields(PatientSearchDTO patientSearchDTO, @RequestParam String fields) {
+        return patientService.searchFields(fields, patientSearchDTO);
+    }
+
+    @GetMapping("/changes")
+    @ResponseStatus(HttpStatus.OK)
+    public ChangesDTO<Patient> getChanges(@RequestParam Optional<String> since) {
+        return patientService.getChanges(since);
+    }
+
+    @PostMapping("/lookup")
+    @ResponseStatus(HttpStatus.OK)
+    public BatchResultDTO<Patient> lookup(@RequestBody List<Integer> ids) {
+        return patientService.getPatientsByIds(ids);
+    }
+
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public Patient findById(@PathVariable Integer id) {
         return patientService.getPatientById(id);
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> findFieldsById(@PathVariable Integer id, @RequestParam String fields) {
+        return patientService.getPatientFieldsById(id, fields);
+    }
+
     @GetMapping("/between-date-of-birth")
     @ResponseStatus(HttpStatus.OK)
-    public List<Patient> findBetweenDateOfBirth(@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date start, @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date end) {
+    public List<Patient> findBetweenDateOfBirth(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date start, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date end) {
         return patientService.getByDateOfBirthBetween(start, end);
     }
 
+    @GetMapping(value = "/between-date-of-birth", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Map<String, Object>> findFieldsBetweenDateOfBirth(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date start, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date end,
+                                                                  @RequestParam String fields) {
+        return patientService.searchFields(fields, new PatientSearchDTO(start, end, null, null, null));
+    }
+
     @GetMapping("/doctor-department/{department}")
     @ResponseStatus(HttpStatus.OK)
     public List<Patient> findByDoctorDepartment(@PathVariable String department) {
         return patientService.getByAdmittedByDepartment(department);
     }
 
+    @GetMapping(value = "/doctor-department/{department}", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Map<String, Object>> findFieldsByDoctorDepartment(@PathVariable String department, @RequestParam String fields) {
+        return patientService.getFieldsByAdmittedByDepartment(department, fields);
+    }
+
     @GetMapping("/off-doctor")
     @ResponseStatus(HttpStatus.OK)
     public List<Patient> findByDoctorStatus() {
         return patientService.getByAdmittedByStatus();
     }
 
+    @GetMapping(value = "/off-doctor", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Map<String, Object>> findFieldsByDoctorStatus(@RequestParam String fields) {
+        return patientService.getFieldsByAdmittedByStatus(fields);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Patient store(@RequestBody @Valid PatientDTO patientDTO) throws ParseException {
         return patientService.store(patientDTO);
     }
 
+    @PostMapping("/reassign")
+    @ResponseStatus(HttpStatus.OK)
+    public ReassignmentDTO reassign(@RequestParam Optional<Integer> doctorId, @RequestParam Optional<String> department) {
+        return patientService.reassignOffDoctorPatients(doctorId, department);
+    }
+
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void update(@PathVariable int id, @RequestBody @Valid PatientDTO patientDTO) {
@@ -0,0 +1,25 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.controller.dto.SlowStatementDTO;
+import org.ironhack.lab406.monitoring.SqlObserver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/sql")
+public class SqlMonitorController {
+    @Autowired
+    private SqlObserver sqlObserver;
+
+    @GetMapping("/slow")
+    @ResponseStatus(HttpStatus.OK)
+    public List<SlowStatementDTO> getSlowStatements() {
+        return sqlObserver.getSlowStatements();
+    }
+}
@@ -0,0 +1,94 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.controller.dto.BatchResultDTO;
+import org.ironhack.lab406.controller.dto.ChangesDTO;
+import org.ironhack.lab406.controller.dto.DoctorSearchDTO;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.service.DoctorService;
+import org.ironhack.lab406.service.ReadResilienceService;
+import org.ironhack.lab406.service.StreamingReadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking counterpart of {@link DoctorController}'s reads: every request is handed to the streaming executor
+ * and frees its container thread, and the doctor list is streamed as newline-delimited JSON.
+ */
+@RestController
+@RequestMapping("/reactive/doctors")
+public class StreamingDoctorController {
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private StreamingReadService streamingReadService;
+
+    @Autowired
+    private ReadResilienceService readResilienceService;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getDoctors(@RequestParam Optional<EmployeeStatus> status, @RequestParam Optional<String> department) {
+        // Streams have no last known good copy to fall back on, so they fail fast while the database is down
+        readResilienceService.ensureAvailable();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(streamingReadService.streamDoctors(status, department));
+    }
+
+    @GetMapping(params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<List<Map<String, Object>>> getDoctorFields(@RequestParam Optional<EmployeeStatus> status, @RequestParam Optional<String> department,
+                                                               @RequestParam String fields) {
+        return () -> doctorService.searchFields(fields, new DoctorSearchDTO(status.map(List::of).orElse(null), department.map(List::of).orElse(null), null));
+    }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<BatchResultDTO<Doctor>> getByIds(@RequestParam List<Integer> ids) {
+        return () -> doctorService.getDoctorsByIds(ids);
+    }
+
+    @GetMapping(params = {"ids", "fields"})
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<BatchResultDTO<Map<String, Object>>> getFieldsByIds(@RequestParam List<Integer> ids, @RequestParam String fields) {
+        return () -> doctorService.getDoctorFieldsByIds(ids, fields);
+    }
+
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<List<Doctor>> search(DoctorSearchDTO doctorSearchDTO) {
+        return () -> doctorService.search(doctorSearchDTO);
+    }
+
+    @GetMapping(value = "/search", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<List<Map<String, Object>>> searchFields(DoctorSearchDTO doctorSearchDTO, @RequestParam String fields) {
+        return () -> doctorService.searchFields(fields, doctorSearchDTO);
+    }
+
+    @GetMapping("/changes")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<ChangesDTO<Doctor>> getChanges(@RequestParam Optional<String> since) {
+        return () -> doctorService.getChanges(since);
+    }
+
+    @GetMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<Doctor> getById(@PathVariable Integer id) {
+        return () -> doctorService.getDoctorById(id);
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<Map<String, Object>> getFieldsById(@PathVariable Integer id, @RequestParam String fields) {
+        return () -> doctorService.getDoctorFieldsById(id, fields);
+    }
+}
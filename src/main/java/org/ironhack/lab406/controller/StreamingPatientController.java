@@ -0,0 +1,132 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.controller.dto.BatchResultDTO;
+import org.ironhack.lab406.controller.dto.ChangesDTO;
+import org.ironhack.lab406.controller.dto.PatientSearchDTO;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.service.PatientService;
+import org.ironhack.lab406.service.ReadResilienceService;
+import org.ironhack.lab406.service.StreamingReadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking counterpart of {@link PatientController}'s reads: every request is handed to the streaming executor
+ * and frees its container thread, and the patient lists are streamed as newline-delimited JSON.
+ */
+@RestController
+@RequestMapping("/reactive/patients")
+public class StreamingPatientController {
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private StreamingReadService streamingReadService;
+
+    @Autowired
+    private ReadResilienceService readResilienceService;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> findAll() {
+        return ndjson(streamingReadService.streamPatients());
+    }
+
+    @GetMapping(params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<List<Map<String, Object>>> findAllFields(@RequestParam String fields) {
+        return () -> patientService.searchFields(fields, new PatientSearchDTO());
+    }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<BatchResultDTO<Patient>> findByIds(@RequestParam List<Integer> ids) {
+        return () -> patientService.getPatientsByIds(ids);
+    }
+
+    @GetMapping(params = {"ids", "fields"})
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<BatchResultDTO<Map<String, Object>>> findFieldsByIds(@RequestParam List<Integer> ids, @RequestParam String fields) {
+        return () -> patientService.getPatientFieldsByIds(ids, fields);
+    }
+
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<List<Patient>> search(PatientSearchDTO patientSearchDTO) {
+        return () -> patientService.search(patientSearchDTO);
+    }
+
+    @GetMapping(value = "/search", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<List<Map<String, Object>>> searchFields(PatientSearchDTO patientSearchDTO, @RequestParam String fields) {
+        return () -> patientService.searchFields(fields, patientSearchDTO);
+    }
+
+    @GetMapping("/changes")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<ChangesDTO<Patient>> getChanges(@RequestParam Optional<String> since) {
+        return () -> patientService.getChanges(since);
+    }
+
+    @GetMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<Patient> findById(@PathVariable Integer id) {
+        return () -> patientService.getPatientById(id);
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<Map<String, Object>> findFieldsById(@PathVariable Integer id, @RequestParam String fields) {
+        return () -> patientService.getPatientFieldsById(id, fields);
+    }
+
+    @GetMapping("/between-date-of-birth")
+    public ResponseEntity<StreamingResponseBody> findBetweenDateOfBirth(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date start, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date end) {
+        return ndjson(streamingReadService.streamPatientsByDateOfBirthBetween(start, end));
+    }
+
+    @GetMapping(value = "/between-date-of-birth", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<List<Map<String, Object>>> findFieldsBetweenDateOfBirth(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date start, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date end,
+                                                                            @RequestParam String fields) {
+        return () -> patientService.searchFields(fields, new PatientSearchDTO(start, end, null, null, null));
+    }
+
+    @GetMapping("/doctor-department/{department}")
+    public ResponseEntity<StreamingResponseBody> findByDoctorDepartment(@PathVariable String department) {
+        return ndjson(streamingReadService.streamPatientsByDoctorDepartment(department));
+    }
+
+    @GetMapping(value = "/doctor-department/{department}", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<List<Map<String, Object>>> findFieldsByDoctorDepartment(@PathVariable String department, @RequestParam String fields) {
+        return () -> patientService.getFieldsByAdmittedByDepartment(department, fields);
+    }
+
+    @GetMapping("/off-doctor")
+    public ResponseEntity<StreamingResponseBody> findByDoctorStatus() {
+        return ndjson(streamingReadService.streamPatientsOfOffDoctors());
+    }
+
+    @GetMapping(value = "/off-doctor", params = "fields")
+    @ResponseStatus(HttpStatus.OK)
+    public Callable<List<Map<String, Object>>> findFieldsByDoctorStatus(@RequestParam String fields) {
+        return () -> patientService.getFieldsByAdmittedByStatus(fields);
+    }
+
+    // Streams have no last known good copy to fall back on, so they fail fast while the database is down
+    private ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        readResilienceService.ensureAvailable();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
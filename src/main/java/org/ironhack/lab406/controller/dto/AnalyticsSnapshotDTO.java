@@ -0,0 +1,70 @@
+package org.ironhack.lab406.controller.dto;
+
+public class AnalyticsSnapshotDTO {
+    private int patients;
+    private int doctors;
+    private int departments;
+    private int bytesPerPatient;
+    private long totalBytes;
+    private long builtAt;
+
+    public AnalyticsSnapshotDTO() {
+    }
+
+    public AnalyticsSnapshotDTO(int patients, int doctors, int departments, int bytesPerPatient, long totalBytes, long builtAt) {
+        this.patients = patients;
+        this.doctors = doctors;
+        this.departments = departments;
+        this.bytesPerPatient = bytesPerPatient;
+        this.totalBytes = totalBytes;
+        this.builtAt = builtAt;
+    }
+
+    public int getPatients() {
+        return patients;
+    }
+
+    public void setPatients(int patients) {
+        this.patients = patients;
+    }
+
+    public int getDoctors() {
+        return doctors;
+    }
+
+    public void setDoctors(int doctors) {
+        this.doctors = doctors;
+    }
+
+    public int getDepartments() {
+        return departments;
+    }
+
+    public void setDepartments(int departments) {
+        this.departments = departments;
+    }
+
+    public int getBytesPerPatient() {
+        return bytesPerPatient;
+    }
+
+    public void setBytesPerPatient(int bytesPerPatient) {
+        this.bytesPerPatient = bytesPerPatient;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public void setBuiltAt(long builtAt) {
+        this.builtAt = builtAt;
+    }
+}
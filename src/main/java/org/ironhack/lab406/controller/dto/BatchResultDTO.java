@@ -0,0 +1,35 @@
+package org.ironhack.lab406.controller.dto;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get: the entities found, in request order, and the requested ids that don't exist.
+ */
+public class BatchResultDTO<T> {
+    private List<T> found;
+    private List<Integer> missing;
+
+    public BatchResultDTO() {
+    }
+
+    public BatchResultDTO(List<T> found, List<Integer> missing) {
+        this.found = found;
+        this.missing = missing;
+    }
+
+    public List<T> getFound() {
+        return found;
+    }
+
+    public void setFound(List<T> found) {
+        this.found = found;
+    }
+
+    public List<Integer> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<Integer> missing) {
+        this.missing = missing;
+    }
+}
@@ -0,0 +1,72 @@
+package org.ironhack.lab406.controller.dto;
+
+import java.util.List;
+
+public class BootstrapReportDTO {
+    private long doctors;
+    private long patients;
+    private long rejected;
+    private List<String> errors;
+    private long millis;
+    private long rowsPerSecond;
+
+    public BootstrapReportDTO() {
+    }
+
+    public BootstrapReportDTO(long doctors, long patients, long rejected, List<String> errors, long millis) {
+        this.doctors = doctors;
+        this.patients = patients;
+        this.rejected = rejected;
+        this.errors = errors;
+        this.millis = millis;
+        this.rowsPerSecond = (doctors + patients) * 1000 / Math.max(millis, 1);
+    }
+
+    public long getDoctors() {
+        return doctors;
+    }
+
+    public void setDoctors(long doctors) {
+        this.doctors = doctors;
+    }
+
+    public long getPatients() {
+        return patients;
+    }
+
+    public void setPatients(long patients) {
+        this.patients = patients;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public void setMillis(long millis) {
+        this.millis = millis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+}
@@ -0,0 +1,42 @@
+package org.ironhack.lab406.controller.dto;
+
+import java.util.List;
+
+public class ChangesDTO<T> {
+    private List<T> items;
+    private String token;
+    private boolean hasMore;
+
+    public ChangesDTO() {
+    }
+
+    public ChangesDTO(List<T> items, String token, boolean hasMore) {
+        this.items = items;
+        this.token = token;
+        this.hasMore = hasMore;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,44 @@
+package org.ironhack.lab406.controller.dto;
+
+import org.ironhack.lab406.enums.EmployeeStatus;
+
+import java.util.List;
+
+public class DoctorSearchDTO {
+    private List<EmployeeStatus> status;
+    private List<String> department;
+    private String name;
+
+    public DoctorSearchDTO() {
+    }
+
+    public DoctorSearchDTO(List<EmployeeStatus> status, List<String> department, String name) {
+        this.status = status;
+        this.department = department;
+        this.name = name;
+    }
+
+    public List<EmployeeStatus> getStatus() {
+        return status;
+    }
+
+    public void setStatus(List<EmployeeStatus> status) {
+        this.status = status;
+    }
+
+    public List<String> getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(List<String> department) {
+        this.department = department;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
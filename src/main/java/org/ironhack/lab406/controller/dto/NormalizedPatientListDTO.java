@@ -0,0 +1,53 @@
+package org.ironhack.lab406.controller.dto;
+
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Patient list where each admitting doctor is serialized once in {@code doctors} and referenced by {@code doctorId}.
+ */
+public class NormalizedPatientListDTO {
+    private List<PatientSummaryDTO> patients;
+    private Map<Integer, Doctor> doctors;
+
+    public NormalizedPatientListDTO() {
+    }
+
+    public NormalizedPatientListDTO(List<PatientSummaryDTO> patients, Map<Integer, Doctor> doctors) {
+        this.patients = patients;
+        this.doctors = doctors;
+    }
+
+    public static NormalizedPatientListDTO of(List<Patient> patients) {
+        List<PatientSummaryDTO> summaries = new ArrayList<>(patients.size());
+        Map<Integer, Doctor> doctors = new LinkedHashMap<>();
+        for (Patient patient : patients) {
+            summaries.add(PatientSummaryDTO.of(patient));
+            if (patient.getAdmittedBy() != null) {
+                doctors.putIfAbsent(patient.getAdmittedBy().getEmployeeId(), patient.getAdmittedBy());
+            }
+        }
+        return new NormalizedPatientListDTO(summaries, doctors);
+    }
+
+    public List<PatientSummaryDTO> getPatients() {
+        return patients;
+    }
+
+    public void setPatients(List<PatientSummaryDTO> patients) {
+        this.patients = patients;
+    }
+
+    public Map<Integer, Doctor> getDoctors() {
+        return doctors;
+    }
+
+    public void setDoctors(Map<Integer, Doctor> doctors) {
+        this.doctors = doctors;
+    }
+}
@@ -0,0 +1,69 @@
+package org.ironhack.lab406.controller.dto;
+
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.util.Date;
+
+public class PatientSearchDTO {
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private Date bornFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private Date bornTo;
+
+    private String department;
+    private EmployeeStatus doctorStatus;
+    private Integer doctorId;
+
+    public PatientSearchDTO() {
+    }
+
+    public PatientSearchDTO(Date bornFrom, Date bornTo, String department, EmployeeStatus doctorStatus, Integer doctorId) {
+        this.bornFrom = bornFrom;
+        this.bornTo = bornTo;
+        this.department = department;
+        this.doctorStatus = doctorStatus;
+        this.doctorId = doctorId;
+    }
+
+    public Date getBornFrom() {
+        return bornFrom;
+    }
+
+    public void setBornFrom(Date bornFrom) {
+        this.bornFrom = bornFrom;
+    }
+
+    public Date getBornTo() {
+        return bornTo;
+    }
+
+    public void setBornTo(Date bornTo) {
+        this.bornTo = bornTo;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    public EmployeeStatus getDoctorStatus() {
+        return doctorStatus;
+    }
+
+    public void setDoctorStatus(EmployeeStatus doctorStatus) {
+        this.doctorStatus = doctorStatus;
+    }
+
+    public Integer getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Integer doctorId) {
+        this.doctorId = doctorId;
+    }
+}
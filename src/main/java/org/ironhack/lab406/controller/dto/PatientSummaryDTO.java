@@ -0,0 +1,59 @@
+package org.ironhack.lab406.controller.dto;
+
+import org.ironhack.lab406.model.Patient;
+
+import java.util.Date;
+
+public class PatientSummaryDTO {
+    private Integer patientId;
+    private String name;
+    private Date dateOfBirth;
+    private Integer doctorId;
+
+    public PatientSummaryDTO() {
+    }
+
+    public PatientSummaryDTO(Integer patientId, String name, Date dateOfBirth, Integer doctorId) {
+        this.patientId = patientId;
+        this.name = name;
+        this.dateOfBirth = dateOfBirth;
+        this.doctorId = doctorId;
+    }
+
+    public static PatientSummaryDTO of(Patient patient) {
+        Integer doctorId = patient.getAdmittedBy() == null ? null : patient.getAdmittedBy().getEmployeeId();
+        return new PatientSummaryDTO(patient.getPatientId(), patient.getName(), patient.getDateOfBirth(), doctorId);
+    }
+
+    public Integer getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Integer patientId) {
+        this.patientId = patientId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Date getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public void setDateOfBirth(Date dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+
+    public Integer getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Integer doctorId) {
+        this.doctorId = doctorId;
+    }
+}
@@ -0,0 +1,32 @@
+package org.ironhack.lab406.controller.dto;
+
+import java.util.Map;
+
+public class ReassignmentDTO {
+    private int reassigned;
+    private Map<Integer, Integer> assignments;
+
+    public ReassignmentDTO() {
+    }
+
+    public ReassignmentDTO(int reassigned, Map<Integer, Integer> assignments) {
+        this.reassigned = reassigned;
+        this.assignments = assignments;
+    }
+
+    public int getReassigned() {
+        return reassigned;
+    }
+
+    public void setReassigned(int reassigned) {
+        this.reassigned = reassigned;
+    }
+
+    public Map<Integer, Integer> getAssignments() {
+        return assignments;
+    }
+
+    public void setAssignments(Map<Integer, Integer> assignments) {
+        this.assignments = assignments;
+    }
+}
@@ -0,0 +1,50 @@
+package org.ironhack.lab406.controller.dto;
+
+public class SlowStatementDTO {
+    private String sql;
+    private double durationMs;
+    private String endpoint;
+    private long executedAt;
+
+    public SlowStatementDTO() {
+    }
+
+    public SlowStatementDTO(String sql, double durationMs, String endpoint, long executedAt) {
+        this.sql = sql;
+        this.durationMs = durationMs;
+        this.endpoint = endpoint;
+        this.executedAt = executedAt;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public double getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(double durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public long getExecutedAt() {
+        return executedAt;
+    }
+
+    public void setExecutedAt(long executedAt) {
+        this.executedAt = executedAt;
+    }
+}
@@ -0,0 +1,34 @@
+package org.ironhack.lab406.enums;
+
+/**
+ * Journaled as its one-byte {@link #getCode() code}; codes are fixed so old journal segments keep their meaning.
+ */
+public enum AuditAction {
+    DOCTOR_CREATED((byte) 1),
+    DOCTOR_STATUS_CHANGED((byte) 2),
+    DOCTOR_DEPARTMENT_CHANGED((byte) 3),
+    PATIENT_ADMITTED((byte) 4),
+    PATIENT_UPDATED((byte) 5),
+    PATIENTS_REASSIGNED((byte) 6),
+    // The commit of an audited write failed after its record was appended; the detail names that record's action
+    WRITE_ROLLED_BACK((byte) 7);
+
+    private final byte code;
+
+    AuditAction(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static AuditAction fromCode(byte code) {
+        for (AuditAction action : values()) {
+            if (action.code == code) {
+                return action;
+            }
+        }
+        throw new IllegalArgumentException("Unknown audit action code " + code);
+    }
+}
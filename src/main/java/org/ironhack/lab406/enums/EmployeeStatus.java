@@ -1,5 +1,28 @@
 package org.ironhack.lab406.enums;
 
+/**
+ * Stored as its one-byte {@link #getCode() code}; codes are fixed so reordering or adding constants never
+ * changes the meaning of existing rows.
+ */
 public enum EmployeeStatus {
-    ON_CALL, ON, OFF
+    ON_CALL((byte) 1), ON((byte) 2), OFF((byte) 3);
+
+    private final byte code;
+
+    EmployeeStatus(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static EmployeeStatus fromCode(byte code) {
+        for (EmployeeStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown status code " + code);
+    }
 }
@@ -0,0 +1,19 @@
+package org.ironhack.lab406.enums;
+
+/**
+ * When appended audit records are forced from the mapped pages to the disk.
+ */
+public enum FsyncPolicy {
+    /**
+     * Left to the operating system: survives a crash of the process, not of the machine.
+     */
+    NONE,
+    /**
+     * Every record is forced before the append returns.
+     */
+    EVERY_WRITE,
+    /**
+     * Forced every {@code audit.fsync-interval-ms}, bounding what a machine crash can lose.
+     */
+    PERIODIC
+}
@@ -0,0 +1,53 @@
+package org.ironhack.lab406.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.util.Objects;
+
+@Entity
+@Table(name = "change_sequences")
+public class ChangeSequence {
+    @Id
+    private String name;
+
+    private long latest;
+
+    public ChangeSequence() {
+    }
+
+    public ChangeSequence(String name, long latest) {
+        this.name = name;
+        this.latest = latest;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getLatest() {
+        return latest;
+    }
+
+    public void setLatest(long latest) {
+        this.latest = latest;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ChangeSequence that = (ChangeSequence) o;
+        return latest == that.latest && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, latest);
+    }
+}
@@ -0,0 +1,53 @@
+package org.ironhack.lab406.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.Objects;
+
+@Entity
+@Table(name = "departments", uniqueConstraints = @UniqueConstraint(name = "uk_departments_name", columnNames = "name"))
+public class Department {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Short departmentId;
+
+    @NotEmpty
+    private String name;
+
+    public Department() {
+    }
+
+    public Department(String name) {
+        this.name = name;
+    }
+
+    public Short getDepartmentId() {
+        return departmentId;
+    }
+
+    public void setDepartmentId(Short departmentId) {
+        this.departmentId = departmentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Department that = (Department) o;
+        return Objects.equals(departmentId, that.departmentId) && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(departmentId, name);
+    }
+}
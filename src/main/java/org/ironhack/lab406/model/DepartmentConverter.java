@@ -0,0 +1,32 @@
+package org.ironhack.lab406.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.ironhack.lab406.service.DepartmentDictionary;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Stores department names as their {@link DepartmentDictionary} code. Only looks codes up: Hibernate also runs it on
+ * query parameters, where an unknown name must not register a department, so writes register theirs through
+ * {@link DepartmentDictionary#register(String)} first and read paths check {@link DepartmentDictionary#find(String)}
+ * before querying by department.
+ */
+@Converter
+public class DepartmentConverter implements AttributeConverter<String, Short> {
+    @Autowired
+    private DepartmentDictionary departmentDictionary;
+
+    @Override
+    public Short convertToDatabaseColumn(String department) {
+        if (department == null) {
+            return null;
+        }
+        return departmentDictionary.find(department)
+                .orElseThrow(() -> new IllegalArgumentException("Department " + department + " is not registered"));
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short code) {
+        return code == null ? null : departmentDictionary.nameOf(code);
+    }
+}
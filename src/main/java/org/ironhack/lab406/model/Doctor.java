@@ -4,24 +4,32 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
 import org.ironhack.lab406.enums.EmployeeStatus;
+import org.springframework.data.domain.Persistable;
 
 import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "doctors")
-public class Doctor {
+@Table(name = "doctors", indexes = {
+        @Index(name = "idx_doctors_department_status", columnList = "department_id, status"),
+        @Index(name = "idx_doctors_status", columnList = "status"),
+        @Index(name = "idx_doctors_change_sequence", columnList = "change_sequence, employee_id")
+})
+public class Doctor implements Persistable<Integer> {
     @Id
     private Integer employeeId;
 
     @NotEmpty
+    @Convert(converter = DepartmentConverter.class)
+    @Column(name = "department_id")
     private String department;
 
     @NotEmpty
     private String name;
 
-    @Enumerated(value = EnumType.STRING)
+    @Convert(converter = EmployeeStatusConverter.class)
     @NotNull
     private EmployeeStatus status;
 
@@ -29,6 +37,16 @@ public class Doctor {
     @JsonIgnore
     private List<Patient> patients;
 
+    // null while a write is waiting for its sequence, see ChangeSequenceService
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Long changeSequence = 0L;
+
+    // The id is assigned by the caller, so Spring Data can't tell a new doctor from a detached one; without this flag
+    // save() merges, which SELECTs the row before inserting it
+    @Transient
+    private boolean isNew = true;
+
     public Doctor() {
     }
 
@@ -71,6 +89,14 @@ public class Doctor {
         this.status = status;
     }
 
+    public Long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(Long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
     public List<Patient> getPatients() {
         return patients;
     }
@@ -79,6 +105,24 @@ public class Doctor {
         this.patients = patients;
     }
 
+    @Override
+    @JsonIgnore
+    public Integer getId() {
+        return employeeId;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,19 @@
+package org.ironhack.lab406.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.ironhack.lab406.enums.EmployeeStatus;
+
+@Converter
+public class EmployeeStatusConverter implements AttributeConverter<EmployeeStatus, Byte> {
+
+    @Override
+    public Byte convertToDatabaseColumn(EmployeeStatus status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public EmployeeStatus convertToEntityAttribute(Byte code) {
+        return code == null ? null : EmployeeStatus.fromCode(code);
+    }
+}
@@ -1,14 +1,20 @@
 package org.ironhack.lab406.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.Date;
 import java.util.Objects;
 
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", indexes = {
+        @Index(name = "idx_patients_date_of_birth", columnList = "date_of_birth"),
+        @Index(name = "idx_patients_admitted_by", columnList = "admitted_by"),
+        @Index(name = "idx_patients_change_sequence", columnList = "change_sequence, patient_id")
+})
 public class Patient {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,6 +30,11 @@ public class Patient {
     @JoinColumn(name = "admitted_by")
     private Doctor admittedBy;
 
+    // null from a write until ChangeSequenceService stamps it after the commit
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Long changeSequence = 0L;
+
     public Patient() {
     }
 
@@ -57,6 +68,14 @@ public class Patient {
         this.dateOfBirth = dateOfBirth;
     }
 
+    public Long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(Long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
     public Doctor getAdmittedBy() {
         return admittedBy;
     }
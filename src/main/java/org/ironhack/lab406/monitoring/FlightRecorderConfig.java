@@ -0,0 +1,44 @@
+package org.ironhack.lab406.monitoring;
+
+import org.ironhack.lab406.service.DoctorService;
+import org.ironhack.lab406.service.PatientService;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Emits {@link ServiceCallEvent}s for every {@link DoctorService} / {@link PatientService} method and
+ * {@link RepositoryCallEvent}s for every Spring Data repository method.
+ */
+@Configuration
+public class FlightRecorderConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceCallEventAdvisor() {
+        return new DefaultPointcutAdvisor(
+                new ComposablePointcut(new RootClassFilter(DoctorService.class)).union(new RootClassFilter(PatientService.class)),
+                new FlightRecorderInterceptor.ServiceCalls());
+    }
+
+    @Bean
+    public static BeanPostProcessor repositoryCallEventPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                            proxyFactory.addAdvice(new FlightRecorderInterceptor.RepositoryCalls(repositoryInformation.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package org.ironhack.lab406.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jdk.jfr.Event;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.ironhack.lab406.controller.dto.BatchResultDTO;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a method call in a JFR event. When no recording has the event enabled, the only cost is the
+ * {@link Event#isEnabled()} check on one shared instance; an event is only allocated for calls that are timed, and
+ * endpoint, parameters, rows and allocation are only collected for events that are actually committed.
+ */
+abstract class FlightRecorderInterceptor<E extends Event> implements MethodInterceptor {
+    private static final int MAX_PARAMETERS_LENGTH = 256;
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Supplier<E> events;
+    // Never committed: enabled state is per event type, so one instance answers for all calls
+    private final E enabledCheck;
+
+    protected FlightRecorderInterceptor(Supplier<E> events) {
+        this.events = events;
+        this.enabledCheck = events.get();
+    }
+
+    protected abstract void fill(E event, String endpoint, String method, String parameters, int rows, long allocated, boolean failed);
+
+    protected abstract String name(MethodInvocation invocation);
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!enabledCheck.isEnabled()) {
+            return invocation.proceed();
+        }
+        E event = events.get();
+
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        Object result = null;
+        boolean failed = true;
+        event.begin();
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                fill(event, endpoint(), name(invocation), parameters(invocation.getArguments()), rows(result),
+                        THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore, failed);
+                event.commit();
+            }
+        }
+    }
+
+    private static String endpoint() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            return request.getMethod() + " " + request.getRequestURI();
+        }
+        return null;
+    }
+
+    private static String parameters(Object[] arguments) {
+        String parameters = Arrays.toString(arguments);
+        return parameters.length() > MAX_PARAMETERS_LENGTH ? parameters.substring(0, MAX_PARAMETERS_LENGTH) : parameters;
+    }
+
+    private static int rows(Object result) {
+        if (result == null) {
+            return 0;
+        } else if (result instanceof Collection<?> collection) {
+            return collection.size();
+        } else if (result instanceof Map<?, ?> map) {
+            return map.size();
+        } else if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        } else if (result instanceof BatchResultDTO<?> batch) {
+            return batch.getFound().size();
+        } else if (result instanceof Number number) {
+            return number.intValue();
+        }
+        return 1;
+    }
+
+    static class ServiceCalls extends FlightRecorderInterceptor<ServiceCallEvent> {
+
+        ServiceCalls() {
+            super(ServiceCallEvent::new);
+        }
+
+        @Override
+        protected String name(MethodInvocation invocation) {
+            return invocation.getMethod().getDeclaringClass().getSimpleName() + "." + invocation.getMethod().getName();
+        }
+
+        @Override
+        protected void fill(ServiceCallEvent event, String endpoint, String method, String parameters, int rows, long allocated, boolean failed) {
+            event.endpoint = endpoint;
+            event.method = method;
+            event.parameters = parameters;
+            event.rows = rows;
+            event.allocated = allocated;
+            event.failed = failed;
+        }
+    }
+
+    static class RepositoryCalls extends FlightRecorderInterceptor<RepositoryCallEvent> {
+        private final String repository;
+
+        RepositoryCalls(String repository) {
+            super(RepositoryCallEvent::new);
+            this.repository = repository;
+        }
+
+        @Override
+        protected String name(MethodInvocation invocation) {
+            return repository + "." + invocation.getMethod().getName();
+        }
+
+        @Override
+        protected void fill(RepositoryCallEvent event, String endpoint, String method, String parameters, int rows, long allocated, boolean failed) {
+            event.endpoint = endpoint;
+            event.method = method;
+            event.parameters = parameters;
+            event.rows = rows;
+            event.allocated = allocated;
+            event.failed = failed;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.ironhack.lab406.monitoring;
+
+import jdk.jfr.*;
+
+@Name("org.ironhack.lab406.RepositoryCall")
+@Label("Repository Call")
+@Category({"Lab 4.06", "Repository"})
+@Description("A Spring Data repository method invocation")
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Method")
+    String method;
+
+    @Label("Parameters")
+    String parameters;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    @Label("Failed")
+    boolean failed;
+}
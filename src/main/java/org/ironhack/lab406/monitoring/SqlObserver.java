@@ -0,0 +1,119 @@
+package org.ironhack.lab406.monitoring;
+
+import org.ironhack.lab406.controller.dto.SlowStatementDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
+
+/**
+ * Receives the timing of every JDBC statement executed through an {@link ObservedDataSource}. Statements are added
+ * to the trace of the HTTP request running on the same thread, and the ones slower than the threshold are logged
+ * with their literals redacted and kept in a fixed-size ring of the most recent slow statements. An asynchronous
+ * request resumes its trace on every thread it runs on, so the worker's statements count too.
+ */
+public class SqlObserver {
+    private static final Logger log = LoggerFactory.getLogger(SqlObserver.class);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final ThreadLocal<Trace> TRACE = new ThreadLocal<>();
+
+    private final long slowThresholdNanos;
+    private final AtomicReferenceArray<SlowStatementDTO> slowStatements;
+    private final AtomicLong slowCount = new AtomicLong();
+
+    public SqlObserver(long slowThresholdMs, int slowLogSize) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.slowStatements = new AtomicReferenceArray<>(slowLogSize);
+    }
+
+    public Trace begin(String endpoint) {
+        Trace trace = new Trace(endpoint);
+        TRACE.set(trace);
+        return trace;
+    }
+
+    /**
+     * The trace of the request running on this thread, or {@code null}.
+     */
+    public Trace current() {
+        return TRACE.get();
+    }
+
+    /**
+     * Adds the statements of this thread to a trace begun on another one, until {@link #end()}.
+     */
+    public void resume(Trace trace) {
+        TRACE.set(trace);
+    }
+
+    public void end() {
+        TRACE.remove();
+    }
+
+    void executed(String sql, long nanos) {
+        Trace trace = TRACE.get();
+        if (trace != null) {
+            trace.add(nanos);
+        }
+        if (nanos >= slowThresholdNanos) {
+            SlowStatementDTO slow = new SlowStatementDTO(redact(sql), nanos / 1_000_000.0, trace == null ? null : trace.endpoint, System.currentTimeMillis());
+            log.warn("Slow statement ({} ms) on {}: {}", String.format(Locale.ROOT, "%.2f", slow.getDurationMs()), slow.getEndpoint(), slow.getSql());
+            slowStatements.set((int) (slowCount.getAndIncrement() % slowStatements.length()), slow);
+        }
+    }
+
+    /**
+     * The most recent slow statements, newest first.
+     */
+    public List<SlowStatementDTO> getSlowStatements() {
+        long last = slowCount.get();
+        int size = (int) Math.min(last, slowStatements.length());
+        List<SlowStatementDTO> statements = new ArrayList<>(size);
+        for (long i = last - 1; i >= last - size; i--) {
+            SlowStatementDTO statement = slowStatements.get((int) (i % slowStatements.length()));
+            if (statement != null) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    // Bound parameters are never captured; literals inlined into the SQL text are masked the same way
+    static String redact(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        return NUMBER_LITERAL.matcher(STRING_LITERAL.matcher(sql).replaceAll("?")).replaceAll("?");
+    }
+
+    public static final class Trace {
+        private final String endpoint;
+        private int count;
+        private long nanos;
+
+        private Trace(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        // The request thread and the async worker can both be adding statements for a moment
+        private synchronized void add(long statementNanos) {
+            count++;
+            nanos += statementNanos;
+        }
+
+        public synchronized int getCount() {
+            return count;
+        }
+
+        public synchronized String serverTiming() {
+            return String.format(Locale.ROOT, "db;desc=\"%d statements\";dur=%.2f", count, nanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.ironhack.lab406.monitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces {@code spring.jpa.show-sql}: every DataSource bean is wrapped in an {@link ObservedDataSource}, and
+ * {@link SqlTraceFilter} reports the statements of each request.
+ */
+@Configuration
+public class SqlObserverConfig {
+
+    @Bean
+    public SqlObserver sqlObserver(@Value("${sql.slow-threshold-ms:200}") long slowThresholdMs, @Value("${sql.slow-log-size:100}") int slowLogSize) {
+        return new SqlObserver(slowThresholdMs, slowLogSize);
+    }
+
+    @Bean
+    public SqlTraceFilter sqlTraceFilter(SqlObserver sqlObserver) {
+        return new SqlTraceFilter(sqlObserver);
+    }
+
+    @Bean
+    public static BeanPostProcessor observedDataSourcePostProcessor(ObjectProvider<SqlObserver> sqlObserver) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ObservedDataSource)) {
+                    return new ObservedDataSource(dataSource, SingletonSupplier.of(sqlObserver::getObject));
+                }
+                return bean;
+            }
+        };
+    }
+}
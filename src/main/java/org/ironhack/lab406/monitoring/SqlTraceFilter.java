@@ -0,0 +1,153 @@
+package org.ironhack.lab406.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Traces the SQL of each request and reports it as {@code Server-Timing: db;desc="N statements";dur=ms}.
+ * The header is added when the body starts being written, since headers can't change once the response is
+ * committed; by then the service call, and all of its statements, have finished.
+ * <p>
+ * An asynchronous request keeps its trace in a request attribute: the streaming executor resumes it on the worker
+ * and the async dispatch resumes it again, and the header is only settled by the first bytes that leave, so a
+ * streamed body, whose output stream is opened before its query runs, still reports that query.
+ */
+public class SqlTraceFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Server-Timing";
+    private static final String RESPONSE_ATTRIBUTE = SqlTraceFilter.class.getName() + ".response";
+
+    private final SqlObserver sqlObserver;
+
+    public SqlTraceFilter(SqlObserver sqlObserver) {
+        this.sqlObserver = sqlObserver;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        ServerTimingResponse timedResponse = (ServerTimingResponse) request.getAttribute(RESPONSE_ATTRIBUTE);
+        if (timedResponse == null) {
+            timedResponse = new ServerTimingResponse(response, sqlObserver.begin(request.getMethod() + " " + request.getRequestURI()));
+            request.setAttribute(RESPONSE_ATTRIBUTE, timedResponse);
+        } else {
+            sqlObserver.resume(timedResponse.trace);
+        }
+        try {
+            // The async dispatch is handed the response the request started async with, which is already wrapped
+            filterChain.doFilter(request, isAsyncDispatch(request) ? response : timedResponse);
+        } finally {
+            // Once async has started the worker's statements are still to come
+            if (!isAsyncStarted(request)) {
+                timedResponse.writeHeader();
+            }
+            sqlObserver.end();
+        }
+    }
+
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+        private final SqlObserver.Trace trace;
+        private ServletOutputStream outputStream;
+
+        private ServerTimingResponse(HttpServletResponse response, SqlObserver.Trace trace) {
+            super(response);
+            this.trace = trace;
+        }
+
+        // Refreshed until the response is committed, so the header counts every statement run before the first byte
+        private void writeHeader() {
+            if (!isCommitted()) {
+                setHeader(HEADER, trace.serverTiming());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            if (outputStream == null) {
+                outputStream = new ServerTimingOutputStream(super.getOutputStream(), this);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+    }
+
+    private static final class ServerTimingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private final ServerTimingResponse response;
+
+        private ServerTimingOutputStream(ServletOutputStream delegate, ServerTimingResponse response) {
+            this.delegate = delegate;
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            response.writeHeader();
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            response.writeHeader();
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            response.writeHeader();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.writeHeader();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.ironhack.lab406.repository;
+
+import org.ironhack.lab406.model.ChangeSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChangeSequenceRepository extends JpaRepository<ChangeSequence, String> {
+
+    // Row-locks the sequence until the calling transaction ends, so sequence numbers become visible in order
+    @Modifying
+    @Query("update ChangeSequence s set s.latest = s.latest + 1 where s.name = :name")
+    int increment(String name);
+
+    @Query("select s.latest from ChangeSequence s where s.name = :name")
+    long findLatest(String name);
+
+    // Plain insert rather than save(), which would merge over a row another node just created
+    @Modifying
+    @Query(value = "insert into change_sequences (name, latest) values (:name, 0)", nativeQuery = true)
+    int register(String name);
+}
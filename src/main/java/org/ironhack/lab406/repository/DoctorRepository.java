@@ -2,17 +2,47 @@ package org.ironhack.lab406.repository;
 
 import org.ironhack.lab406.enums.EmployeeStatus;
 import org.ironhack.lab406.model.Doctor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Integer> {
+public interface DoctorRepository extends JpaRepository<Doctor, Integer>, DoctorSearchRepository {
 
     List<Doctor> findByStatus(EmployeeStatus status);
 
     List<Doctor> findByDepartment(String department);
 
     List<Doctor> findByDepartmentAndStatus(String department, EmployeeStatus status);
+
+    // [employeeId, number of admitted patients] for the doctors of a department in the given statuses
+    @Query("select d.employeeId, count(p) from Doctor d left join d.patients p where d.department = :department and d.status in :statuses group by d.employeeId")
+    List<Object[]> findLoadByDepartmentAndStatusIn(String department, Collection<EmployeeStatus> statuses);
+
+    // Keyset page of the doctors changed after (sequence, id), in change order
+    @Query("select d from Doctor d where d.changeSequence > :sequence or (d.changeSequence = :sequence and d.employeeId > :id) order by d.changeSequence, d.employeeId")
+    List<Doctor> findChangedSince(long sequence, int id, Pageable page);
+
+    // [employeeId, changeSequence] of the doctors stamped after sequence, in change order, for cache invalidation
+    @Query("select d.employeeId, d.changeSequence from Doctor d where d.changeSequence > :sequence order by d.changeSequence")
+    List<Object[]> findIdsChangedAfter(long sequence, Pageable page);
+
+    @Query("select coalesce(max(d.changeSequence), 0) from Doctor d")
+    long findLatestChangeSequence();
+
+    boolean existsByChangeSequenceIsNull();
+
+    // Gives every committed write still waiting for a sequence the same one
+    @Modifying
+    @Query("update Doctor d set d.changeSequence = :sequence where d.changeSequence is null")
+    int stampPending(long sequence);
+
+    // Keyset page for the streaming endpoints: the doctors after afterId, in id order; null matches any
+    @Query("select d from Doctor d where (:status is null or d.status = :status) and (:department is null or d.department = :department) and d.employeeId > :afterId order by d.employeeId")
+    List<Doctor> findPageByStatusAndDepartment(EmployeeStatus status, String department, int afterId, Pageable page);
 }
@@ -0,0 +1,26 @@
+package org.ironhack.lab406.repository;
+
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DoctorSearchRepository {
+    /**
+     * Fields that {@link #searchFields} can select, in the order they are returned.
+     */
+    List<String> FIELDS = List.of("employeeId", "department", "name", "status");
+
+    /**
+     * Doctors matching every filter given; {@code null} or empty filters are left out of the query.
+     */
+    List<Doctor> search(Collection<EmployeeStatus> statuses, Collection<String> departments, String namePrefix);
+
+    /**
+     * Same filters as {@link #search}, plus employee ids, selecting only {@code fields} (a subset of {@link #FIELDS}
+     * in that order). Each row is {@code [employeeId, field values...]}.
+     */
+    List<Object[]> searchFields(List<String> fields, Collection<Integer> ids, Collection<EmployeeStatus> statuses,
+                                Collection<String> departments, String namePrefix);
+}
@@ -0,0 +1,89 @@
+package org.ironhack.lab406.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.ironhack.lab406.repository.SearchQueries.*;
+
+class DoctorSearchRepositoryImpl implements DoctorSearchRepository {
+    private static final int STATUSES = 0;
+    private static final int DEPARTMENTS = 1;
+    private static final int NAME = 2;
+    private static final int IDS = 3;
+
+    private static final List<String> COLUMNS = List.of("d.employeeId", "d.department", "d.name", "d.status");
+
+    private static final SearchQueries QUERIES = new SearchQueries(signature ->
+            "select d from Doctor d" + where(conditions(signature)) + " order by d.employeeId");
+
+    // Low byte: filter signature, above it: one bit per field in FIELDS
+    private static final SearchQueries PROJECTIONS = new SearchQueries(key -> {
+        StringBuilder select = new StringBuilder("select d.employeeId");
+        for (int field = 0; field < COLUMNS.size(); field++) {
+            if (has(key >>> 8, field)) {
+                select.append(", ").append(COLUMNS.get(field));
+            }
+        }
+        return select + " from Doctor d" + where(conditions(key & 0xFF)) + " order by d.employeeId";
+    });
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Doctor> search(Collection<EmployeeStatus> statuses, Collection<String> departments, String namePrefix) {
+        int signature = signature(present(statuses), present(departments), present(namePrefix));
+        return bind(entityManager.createQuery(QUERIES.get(signature), Doctor.class), signature, null, statuses, departments, namePrefix)
+                .getResultList();
+    }
+
+    @Override
+    public List<Object[]> searchFields(List<String> fields, Collection<Integer> ids, Collection<EmployeeStatus> statuses,
+                                       Collection<String> departments, String namePrefix) {
+        int signature = signature(present(statuses), present(departments), present(namePrefix), present(ids));
+        int key = fieldMask(FIELDS, fields) << 8 | signature;
+        return bind(entityManager.createQuery(PROJECTIONS.get(key), Object[].class), signature, ids, statuses, departments, namePrefix)
+                .getResultList();
+    }
+
+    private static List<String> conditions(int signature) {
+        List<String> conditions = new ArrayList<>();
+        if (has(signature, STATUSES)) {
+            conditions.add("d.status in :statuses");
+        }
+        if (has(signature, DEPARTMENTS)) {
+            conditions.add("d.department in :departments");
+        }
+        if (has(signature, NAME)) {
+            conditions.add("d.name like :name escape '!'");
+        }
+        if (has(signature, IDS)) {
+            conditions.add("d.employeeId in :ids");
+        }
+        return conditions;
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, int signature, Collection<Integer> ids, Collection<EmployeeStatus> statuses,
+                                          Collection<String> departments, String namePrefix) {
+        if (has(signature, STATUSES)) {
+            query.setParameter("statuses", statuses);
+        }
+        if (has(signature, DEPARTMENTS)) {
+            query.setParameter("departments", departments);
+        }
+        if (has(signature, NAME)) {
+            query.setParameter("name", escapeLike(namePrefix) + "%");
+        }
+        if (has(signature, IDS)) {
+            query.setParameter("ids", ids);
+        }
+        return query;
+    }
+}
@@ -1,19 +1,90 @@
 package org.ironhack.lab406.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.ironhack.lab406.enums.EmployeeStatus;
 import org.ironhack.lab406.model.Patient;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Integer> {
+public interface PatientRepository extends JpaRepository<Patient, Integer>, PatientSearchRepository {
 
+    // admittedBy is fetched in the same statement, otherwise every distinct doctor costs one more SELECT
+    @Override
+    @EntityGraph(attributePaths = "admittedBy")
+    List<Patient> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "admittedBy")
+    List<Patient> findAllById(Iterable<Integer> ids);
+
+    @EntityGraph(attributePaths = "admittedBy")
     List<Patient> findByDateOfBirthBetween(Date date1, Date date2);
 
+    @EntityGraph(attributePaths = "admittedBy")
     List<Patient> findByAdmittedByDepartment(String department);
 
+    @EntityGraph(attributePaths = "admittedBy")
     List<Patient> findByAdmittedByStatus(EmployeeStatus status);
+
+    // Narrow scan for the analytics snapshot: dateOfBirth, employeeId, department, status, read in batches of the fetch size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.dateOfBirth, d.employeeId, d.department, d.status from Patient p left join p.admittedBy d")
+    Stream<Object[]> streamAnalyticsRows();
+
+    // Duplicate check of an admission: stops at the first match instead of reading every patient
+    boolean existsByNameAndDateOfBirthAndAdmittedByEmployeeId(String name, Date dateOfBirth, Integer employeeId);
+
+    @Query("select p.patientId from Patient p where p.admittedBy.employeeId in :doctorIds order by p.patientId")
+    List<Integer> findIdsByAdmittedByIn(Collection<Integer> doctorIds);
+
+    // Moves every patient of the source doctors whose id falls in [fromId, toId] in a single statement, leaving them to be stamped
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update patients set admitted_by = :target, change_sequence = null where admitted_by in (:sources) and patient_id between :fromId and :toId", nativeQuery = true)
+    int reassignRange(Integer target, Collection<Integer> sources, Integer fromId, Integer toId);
+
+    // Keyset page of the patients changed after (sequence, id), in change order
+    @EntityGraph(attributePaths = "admittedBy")
+    @Query("select p from Patient p where p.changeSequence > :sequence or (p.changeSequence = :sequence and p.patientId > :id) order by p.changeSequence, p.patientId")
+    List<Patient> findChangedSince(long sequence, int id, Pageable page);
+
+    @Query("select p.patientId, p.changeSequence from Patient p where p.changeSequence > :sequence order by p.changeSequence")
+    List<Object[]> findIdsChangedAfter(long sequence, Pageable page);
+
+    @Query("select coalesce(max(p.changeSequence), 0) from Patient p")
+    long findLatestChangeSequence();
+
+    boolean existsByChangeSequenceIsNull();
+
+    @Modifying
+    @Query("update Patient p set p.changeSequence = :sequence where p.changeSequence is null")
+    int stampPending(long sequence);
+
+    // Keyset pages for the streaming endpoints: the patients after afterId, in id order
+    @EntityGraph(attributePaths = "admittedBy")
+    @Query("select p from Patient p where p.patientId > :afterId order by p.patientId")
+    List<Patient> findPageAfter(int afterId, Pageable page);
+
+    @EntityGraph(attributePaths = "admittedBy")
+    @Query("select p from Patient p where p.dateOfBirth between :date1 and :date2 and p.patientId > :afterId order by p.patientId")
+    List<Patient> findPageByDateOfBirthBetween(Date date1, Date date2, int afterId, Pageable page);
+
+    @EntityGraph(attributePaths = "admittedBy")
+    @Query("select p from Patient p where p.admittedBy.department = :department and p.patientId > :afterId order by p.patientId")
+    List<Patient> findPageByAdmittedByDepartment(String department, int afterId, Pageable page);
+
+    @EntityGraph(attributePaths = "admittedBy")
+    @Query("select p from Patient p where p.admittedBy.status = :status and p.patientId > :afterId order by p.patientId")
+    List<Patient> findPageByAdmittedByStatus(EmployeeStatus status, int afterId, Pageable page);
 }
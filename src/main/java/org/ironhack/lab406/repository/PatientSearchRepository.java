@@ -0,0 +1,30 @@
+package org.ironhack.lab406.repository;
+
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Patient;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface PatientSearchRepository {
+    /**
+     * Fields that {@link #searchFields} can select, in the order they are returned. Only the admittedBy fields other
+     * than the employeeId need the doctors table.
+     */
+    List<String> FIELDS = List.of("patientId", "name", "dateOfBirth",
+            "admittedBy.employeeId", "admittedBy.department", "admittedBy.name", "admittedBy.status");
+
+    /**
+     * Patients, with their admitting doctor, matching every filter given; {@code null} filters are left out of
+     * the query. Dates of birth are inclusive.
+     */
+    List<Patient> search(Date bornFrom, Date bornTo, String department, EmployeeStatus doctorStatus, Integer doctorId);
+
+    /**
+     * Same filters as {@link #search}, plus patient ids, selecting only {@code fields} (a subset of {@link #FIELDS}
+     * in that order). Each row is {@code [patientId, field values...]}.
+     */
+    List<Object[]> searchFields(List<String> fields, Collection<Integer> ids, Date bornFrom, Date bornTo, String department,
+                                EmployeeStatus doctorStatus, Integer doctorId);
+}
@@ -0,0 +1,122 @@
+package org.ironhack.lab406.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Patient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import static org.ironhack.lab406.repository.SearchQueries.*;
+
+class PatientSearchRepositoryImpl implements PatientSearchRepository {
+    private static final int BORN_FROM = 0;
+    private static final int BORN_TO = 1;
+    private static final int DEPARTMENT = 2;
+    private static final int DOCTOR_STATUS = 3;
+    private static final int DOCTOR_ID = 4;
+    private static final int IDS = 5;
+
+    // The FK column already holds the doctor's id, so admittedBy.employeeId doesn't need the join
+    private static final List<String> COLUMNS = List.of("p.patientId", "p.name", "p.dateOfBirth",
+            "p.admittedBy.employeeId", "d.department", "d.name", "d.status");
+    private static final int DOCTOR_COLUMNS = 0b1110000;
+
+    private static final SearchQueries QUERIES = new SearchQueries(signature ->
+            "select p from Patient p " + (doctorFilter(signature) ? "join" : "left join") + " fetch p.admittedBy d"
+                    + where(conditions(signature)) + " order by p.patientId");
+
+    // Low byte: filter signature, above it: one bit per field in FIELDS
+    private static final SearchQueries PROJECTIONS = new SearchQueries(key -> {
+        int signature = key & 0xFF;
+        int fields = key >>> 8;
+        StringBuilder select = new StringBuilder("select p.patientId");
+        for (int field = 0; field < COLUMNS.size(); field++) {
+            if (has(fields, field)) {
+                select.append(", ").append(COLUMNS.get(field));
+            }
+        }
+        select.append(" from Patient p");
+        boolean byDoctorColumns = has(signature, DEPARTMENT) || has(signature, DOCTOR_STATUS);
+        if (byDoctorColumns) {
+            select.append(" join p.admittedBy d");
+        } else if ((fields & DOCTOR_COLUMNS) != 0) {
+            select.append(" left join p.admittedBy d");
+        }
+        return select + where(conditions(signature)) + " order by p.patientId";
+    });
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Patient> search(Date bornFrom, Date bornTo, String department, EmployeeStatus doctorStatus, Integer doctorId) {
+        int signature = signature(bornFrom != null, bornTo != null, department != null, doctorStatus != null, doctorId != null);
+        return bind(entityManager.createQuery(QUERIES.get(signature), Patient.class), signature, null, bornFrom, bornTo, department, doctorStatus, doctorId)
+                .getResultList();
+    }
+
+    @Override
+    public List<Object[]> searchFields(List<String> fields, Collection<Integer> ids, Date bornFrom, Date bornTo, String department,
+                                       EmployeeStatus doctorStatus, Integer doctorId) {
+        int signature = signature(bornFrom != null, bornTo != null, department != null, doctorStatus != null, doctorId != null, present(ids));
+        int key = fieldMask(FIELDS, fields) << 8 | signature;
+        return bind(entityManager.createQuery(PROJECTIONS.get(key), Object[].class), signature, ids, bornFrom, bornTo, department, doctorStatus, doctorId)
+                .getResultList();
+    }
+
+    // Patients without a doctor can only match when no doctor filter is given
+    private static boolean doctorFilter(int signature) {
+        return has(signature, DEPARTMENT) || has(signature, DOCTOR_STATUS) || has(signature, DOCTOR_ID);
+    }
+
+    private static List<String> conditions(int signature) {
+        List<String> conditions = new ArrayList<>();
+        if (has(signature, BORN_FROM)) {
+            conditions.add("p.dateOfBirth >= :bornFrom");
+        }
+        if (has(signature, BORN_TO)) {
+            conditions.add("p.dateOfBirth <= :bornTo");
+        }
+        if (has(signature, DEPARTMENT)) {
+            conditions.add("d.department = :department");
+        }
+        if (has(signature, DOCTOR_STATUS)) {
+            conditions.add("d.status = :doctorStatus");
+        }
+        if (has(signature, DOCTOR_ID)) {
+            conditions.add("p.admittedBy.employeeId = :doctorId");
+        }
+        if (has(signature, IDS)) {
+            conditions.add("p.patientId in :ids");
+        }
+        return conditions;
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, int signature, Collection<Integer> ids, Date bornFrom, Date bornTo,
+                                          String department, EmployeeStatus doctorStatus, Integer doctorId) {
+        if (has(signature, BORN_FROM)) {
+            query.setParameter("bornFrom", bornFrom);
+        }
+        if (has(signature, BORN_TO)) {
+            query.setParameter("bornTo", bornTo);
+        }
+        if (has(signature, DEPARTMENT)) {
+            query.setParameter("department", department);
+        }
+        if (has(signature, DOCTOR_STATUS)) {
+            query.setParameter("doctorStatus", doctorStatus);
+        }
+        if (has(signature, DOCTOR_ID)) {
+            query.setParameter("doctorId", doctorId);
+        }
+        if (has(signature, IDS)) {
+            query.setParameter("ids", ids);
+        }
+        return query;
+    }
+}
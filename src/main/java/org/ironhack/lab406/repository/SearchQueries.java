@@ -0,0 +1,64 @@
+package org.ironhack.lab406.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Query shapes for the search fragments, built once per filter signature (a bit per filter present). Reusing
+ * the exact same JPQL string for a signature also keeps Hibernate's query plan cache and the driver's
+ * prepared statement cache hitting.
+ */
+final class SearchQueries {
+    private final Map<Integer, String> queries = new ConcurrentHashMap<>();
+    private final IntFunction<String> builder;
+
+    SearchQueries(IntFunction<String> builder) {
+        this.builder = builder;
+    }
+
+    String get(int signature) {
+        return queries.computeIfAbsent(signature, builder::apply);
+    }
+
+    static int signature(boolean... present) {
+        int signature = 0;
+        for (int i = 0; i < present.length; i++) {
+            if (present[i]) {
+                signature |= 1 << i;
+            }
+        }
+        return signature;
+    }
+
+    static boolean present(Collection<?> values) {
+        return values != null && !values.isEmpty();
+    }
+
+    static boolean present(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    static int fieldMask(List<String> allFields, List<String> fields) {
+        int mask = 0;
+        for (String field : fields) {
+            mask |= 1 << allFields.indexOf(field);
+        }
+        return mask;
+    }
+
+    static boolean has(int signature, int filter) {
+        return (signature & 1 << filter) != 0;
+    }
+
+    static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    // '!' rather than a backslash, which MySQL would also treat as a string literal escape
+    static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
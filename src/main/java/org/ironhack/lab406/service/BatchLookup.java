@@ -0,0 +1,47 @@
+package org.ironhack.lab406.service;
+
+import org.ironhack.lab406.controller.dto.BatchResultDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Resolves a list of ids with IN queries of at most {@code chunkSize} parameters each,
+ * keeping the request order and reporting ids that weren't found.
+ */
+final class BatchLookup {
+
+    private BatchLookup() {
+    }
+
+    static <T> BatchResultDTO<T> resolve(List<Integer> ids, int chunkSize, int maxIds,
+                                         Function<List<Integer>, List<T>> loader, Function<T, Integer> idOf) {
+        List<Integer> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        requested.removeIf(Objects::isNull);
+        if (requested.size() > maxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A maximum of " + maxIds + " ids can be requested at once.");
+        }
+
+        Map<Integer, T> byId = new HashMap<>(requested.size() * 2);
+        for (int from = 0; from < requested.size(); from += chunkSize) {
+            List<Integer> chunk = requested.subList(from, Math.min(from + chunkSize, requested.size()));
+            for (T entity : loader.apply(chunk)) {
+                byId.put(idOf.apply(entity), entity);
+            }
+        }
+
+        List<T> found = new ArrayList<>(byId.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : requested) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResultDTO<>(found, missing);
+    }
+}
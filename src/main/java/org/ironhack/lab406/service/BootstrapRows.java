@@ -0,0 +1,155 @@
+package org.ironhack.lab406.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams the rows of a bootstrap file one line at a time, as column name to value maps. CSV files start with a
+ * header line and quote fields with {@code "} (no line breaks inside fields); NDJSON files hold one object per line.
+ * Blank lines are skipped. A line that can't be parsed fails with an {@link IllegalArgumentException}, like an invalid
+ * value, and reading goes on with the next line.
+ */
+abstract class BootstrapRows implements Closeable {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final BufferedReader reader;
+    private int line;
+
+    private BootstrapRows(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    static BootstrapRows open(String filename, InputStream input) throws IOException {
+        String name = filename == null ? "" : filename.toLowerCase();
+        if (name.endsWith(".csv")) {
+            return new Csv(input);
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return new Ndjson(input);
+        }
+        input.close();
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported file format: " + filename);
+    }
+
+    /**
+     * The next row, or {@code null} at the end of the file.
+     */
+    Map<String, String> next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        return parse(text);
+    }
+
+    /**
+     * Line number of the row last returned by {@link #next()}.
+     */
+    int line() {
+        return line;
+    }
+
+    protected abstract Map<String, String> parse(String text) throws IOException;
+
+    protected String readHeader() throws IOException {
+        String header = reader.readLine();
+        line++;
+        return header == null ? "" : header.replace("\uFEFF", "");
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class Csv extends BootstrapRows {
+        private final List<String> columns;
+
+        private Csv(InputStream input) throws IOException {
+            super(input);
+            columns = split(readHeader());
+        }
+
+        @Override
+        protected Map<String, String> parse(String text) {
+            List<String> fields = split(text);
+            Map<String, String> row = new HashMap<>(columns.size() * 2);
+            for (int i = 0; i < columns.size() && i < fields.size(); i++) {
+                row.put(columns.get(i), fields.get(i));
+            }
+            return row;
+        }
+
+        static List<String> split(String text) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private static final class Ndjson extends BootstrapRows {
+        private Ndjson(InputStream input) {
+            super(input);
+        }
+
+        @Override
+        protected Map<String, String> parse(String text) {
+            JsonNode node;
+            try {
+                node = JSON.readTree(text);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                throw new IllegalArgumentException("Not a JSON object");
+            }
+            Map<String, String> row = new HashMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                row.put(field.getKey(), field.getValue().isNull() ? null : field.getValue().asText());
+            }
+            return row;
+        }
+    }
+}
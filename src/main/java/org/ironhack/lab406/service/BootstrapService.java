@@ -0,0 +1,207 @@
+package org.ironhack.lab406.service;
+
+import io.micrometer.common.util.StringUtils;
+import org.ironhack.lab406.controller.dto.BootstrapReportDTO;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Seeds doctors and patients from CSV or NDJSON files. Rows are streamed and written {@code bootstrap.rows-per-statement}
+ * at a time as multi-row INSERTs over one plain JDBC connection, each statement committing on its own. Every statement
+ * stamps its rows with the next change sequence, so delta-sync clients pick them up like any other write. Departments
+ * come from the {@link DepartmentDictionary} and {@code admittedBy} is checked against the doctor ids read once up
+ * front, so no row costs a lookup. Invalid rows are skipped and reported.
+ * <p>
+ * Runs at startup when {@code bootstrap.doctors-file} and / or {@code bootstrap.patients-file} are set (any Spring
+ * resource location), and on demand through {@code POST /admin/bootstrap}.
+ */
+@Service
+@Order(2)
+public class BootstrapService implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(BootstrapService.class);
+    private static final int MAX_ERRORS = 20;
+    private static final String INSERT_DOCTORS = "insert into doctors (employee_id, department_id, name, status, change_sequence) values ";
+    private static final String INSERT_PATIENTS = "insert into patients (name, date_of_birth, admitted_by, change_sequence) values ";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DepartmentDictionary departmentDictionary;
+
+    @Autowired
+    private ChangeSequenceService changeSequenceService;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${bootstrap.doctors-file:}")
+    private String doctorsFile;
+
+    @Value("${bootstrap.patients-file:}")
+    private String patientsFile;
+
+    @Value("${bootstrap.rows-per-statement:1000}")
+    private int rowsPerStatement;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (StringUtils.isBlank(doctorsFile) && StringUtils.isBlank(patientsFile)) {
+            return;
+        }
+        Resource doctors = StringUtils.isBlank(doctorsFile) ? null : resourceLoader.getResource(doctorsFile);
+        Resource patients = StringUtils.isBlank(patientsFile) ? null : resourceLoader.getResource(patientsFile);
+        load(doctors, doctors == null ? null : doctors.getFilename(), patients, patients == null ? null : patients.getFilename());
+    }
+
+    /**
+     * Loads the doctors first, so the patients file can reference them. Either file may be {@code null}.
+     */
+    public BootstrapReportDTO load(InputStreamSource doctors, String doctorsFilename, InputStreamSource patients, String patientsFilename) {
+        long start = System.nanoTime();
+        Report report = new Report();
+        // Both files are opened first, so an unsupported format is refused before anything is written
+        try (BootstrapRows doctorRows = doctors == null ? null : BootstrapRows.open(doctorsFilename, doctors.getInputStream());
+             BootstrapRows patientRows = patients == null ? null : BootstrapRows.open(patientsFilename, patients.getInputStream());
+             Connection connection = dataSource.getConnection()) {
+            // Committed statement by statement, so the change sequence row is locked for one statement at a time
+            connection.setAutoCommit(false);
+            Set<Integer> doctorIds = doctorIds(connection);
+            if (doctorRows != null) {
+                report.doctors = loadDoctors(connection, doctorRows, doctorIds, report);
+            }
+            if (patientRows != null) {
+                report.patients = loadPatients(connection, patientRows, doctorIds, report);
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Bootstrap", null, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        BootstrapReportDTO result = new BootstrapReportDTO(report.doctors, report.patients, report.rejected, report.errors,
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("Bootstrap loaded {} doctors and {} patients in {} ms ({} rows/s), {} rows rejected",
+                result.getDoctors(), result.getPatients(), result.getMillis(), result.getRowsPerSecond(), result.getRejected());
+        return result;
+    }
+
+    private long loadDoctors(Connection connection, BootstrapRows rows, Set<Integer> doctorIds, Report report) throws IOException, SQLException {
+        try (MultiRowInsert insert = new MultiRowInsert(connection, INSERT_DOCTORS, "(?, ?, ?, ?, ?)", rowsPerStatement,
+                () -> changeSequenceService.next(connection, ChangeSequenceService.DOCTORS))) {
+            Map<String, String> row;
+            while ((row = next(rows, "doctors", report)) != null) {
+                try {
+                    int employeeId = Integer.parseInt(required(row, "employeeId"));
+                    String department = required(row, "department");
+                    String name = required(row, "name");
+                    EmployeeStatus status = EmployeeStatus.valueOf(required(row, "status"));
+                    if (!doctorIds.add(employeeId)) {
+                        throw new IllegalArgumentException("Duplicate employeeId " + employeeId);
+                    }
+                    insert.add(employeeId, departmentDictionary.register(department), name, status.getCode());
+                } catch (IllegalArgumentException e) {
+                    report.reject("doctors", rows.line(), e);
+                }
+            }
+            insert.flush();
+            return insert.getWritten();
+        }
+    }
+
+    private long loadPatients(Connection connection, BootstrapRows rows, Set<Integer> doctorIds, Report report) throws IOException, SQLException {
+        try (MultiRowInsert insert = new MultiRowInsert(connection, INSERT_PATIENTS, "(?, ?, ?, ?)", rowsPerStatement,
+                () -> changeSequenceService.next(connection, ChangeSequenceService.PATIENTS))) {
+            Map<String, String> row;
+            while ((row = next(rows, "patients", report)) != null) {
+                try {
+                    String name = required(row, "name");
+                    Date dateOfBirth = Date.valueOf(LocalDate.parse(required(row, "dateOfBirth")));
+                    Integer admittedBy = null;
+                    if (StringUtils.isNotBlank(row.get("admittedBy"))) {
+                        admittedBy = Integer.parseInt(row.get("admittedBy"));
+                        if (!doctorIds.contains(admittedBy)) {
+                            throw new IllegalArgumentException("Unknown admittedBy " + admittedBy);
+                        }
+                    }
+                    insert.add(name, dateOfBirth, admittedBy);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    report.reject("patients", rows.line(), e);
+                }
+            }
+            insert.flush();
+            return insert.getWritten();
+        }
+    }
+
+    // A line that doesn't parse is rejected like a row with invalid values
+    private static Map<String, String> next(BootstrapRows rows, String file, Report report) throws IOException {
+        while (true) {
+            try {
+                return rows.next();
+            } catch (IllegalArgumentException e) {
+                report.reject(file, rows.line(), e);
+            }
+        }
+    }
+
+    private static Set<Integer> doctorIds(Connection connection) throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select employee_id from doctors")) {
+            while (rows.next()) {
+                ids.add(rows.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private static String required(Map<String, String> row, String column) {
+        String value = row.get(column);
+        if (StringUtils.isBlank(value)) {
+            throw new IllegalArgumentException("Missing " + column);
+        }
+        return value;
+    }
+
+    private static final class Report {
+        private long doctors;
+        private long patients;
+        private long rejected;
+        private final List<String> errors = new ArrayList<>();
+
+        private void reject(String file, int line, RuntimeException cause) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(file + " line " + line + ": " + cause.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.ironhack.lab406.service;
+
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.config.TenantKeyGenerator;
+import org.ironhack.lab406.config.TenantProperties;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.repository.DoctorRepository;
+import org.ironhack.lab406.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the per-node doctor and patient caches coherent across replicas without extra infrastructure.
+ * The change sequences behind the delta-sync endpoints double as the log of writes: each node polls every hospital
+ * for the ids stamped since the last sequence it saw and evicts just those entries. Writes themselves touch no
+ * shared row; on the node that made them they evict their own entries once they commit. When more ids changed than
+ * {@code cache.invalidation.max-evictions}, the region is cleared instead.
+ * <p>
+ * A node that can't poll a hospital clears everything once {@code cache.invalidation.max-staleness-ms} has passed, so
+ * no entry is served longer than that plus one poll interval after a remote write has been stamped.
+ */
+@Service
+@Order(1)
+public class CacheInvalidationService implements ApplicationRunner {
+    public static final String DOCTORS = "doctors";
+    public static final String PATIENTS = "patients";
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectProvider<TenantProperties> tenantProperties;
+
+    @Value("${cache.invalidation.max-staleness-ms:5000}")
+    private long maxStalenessMillis;
+
+    @Value("${cache.invalidation.max-evictions:1000}")
+    private int maxEvictions;
+
+    // Hospital -> region -> change sequence last seen
+    private final Map<String, Map<String, Long>> seenSequences = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastSuccessfulPolls = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+    // The scheduler starts before the application runners, when the hospital schemas may not exist yet
+    private volatile boolean ready;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ready = true;
+    }
+
+    /**
+     * Records a write to the entries of {@code ids} in {@code region} of the current hospital: evicts them on this
+     * node once the write commits. The other nodes evict them once the write is stamped with its change sequence.
+     */
+    public void changed(String region, Collection<Integer> ids) {
+        String tenant = TenantContext.get();
+        // Evicting before the commit would let a concurrent read cache the row as it was before this write
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(tenant, region, ids);
+                }
+            });
+        } else {
+            evict(tenant, region, ids);
+        }
+    }
+
+    public void changed(String region, Integer id) {
+        changed(region, List.of(id));
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.poll-ms:1000}")
+    public void poll() {
+        if (!ready) {
+            return;
+        }
+        for (String tenant : tenants()) {
+            String name = tenantName(tenant);
+            TenantContext.set(tenant);
+            try {
+                Map<String, Long> seen = seenSequences.computeIfAbsent(name, key -> new ConcurrentHashMap<>());
+                for (String region : List.of(DOCTORS, PATIENTS)) {
+                    poll(tenant, region, seen);
+                }
+                lastSuccessfulPolls.put(name, System.currentTimeMillis());
+            } catch (DataAccessException e) {
+                log.warn("Cache invalidation poll of {} failed: {}", name, e.getMessage());
+                if (System.currentTimeMillis() - lastSuccessfulPolls.getOrDefault(name, startedAt) > maxStalenessMillis) {
+                    clear(DOCTORS);
+                }
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    // Stamps commit in sequence order, so nothing below the last sequence seen can still show up
+    private void poll(String tenant, String region, Map<String, Long> seen) {
+        Long previous = seen.get(region);
+        if (previous == null) {
+            // Writes before the first poll are unknown: start from a clean region
+            seen.put(region, latestSequence(region));
+            clear(region);
+            return;
+        }
+        List<Object[]> changes = DOCTORS.equals(region)
+                ? doctorRepository.findIdsChangedAfter(previous, PageRequest.of(0, maxEvictions + 1))
+                : patientRepository.findIdsChangedAfter(previous, PageRequest.of(0, maxEvictions + 1));
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (changes.size() > maxEvictions) {
+            seen.put(region, latestSequence(region));
+            clear(region);
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(changes.size());
+        for (Object[] change : changes) {
+            ids.add((Integer) change[0]);
+        }
+        evict(tenant, region, ids);
+        seen.put(region, (Long) changes.get(changes.size() - 1)[1]);
+    }
+
+    private long latestSequence(String region) {
+        return DOCTORS.equals(region) ? doctorRepository.findLatestChangeSequence() : patientRepository.findLatestChangeSequence();
+    }
+
+    private List<String> tenants() {
+        List<String> tenants = new ArrayList<>();
+        tenants.add(null);
+        tenantProperties.ifAvailable(properties -> tenants.addAll(properties.getDatasources().keySet()));
+        return tenants;
+    }
+
+    private static String tenantName(String tenant) {
+        return tenant == null ? TenantContext.DEFAULT_TENANT : tenant;
+    }
+
+    private void evict(String tenant, String region, Collection<Integer> ids) {
+        Cache cache = cacheManager.getCache(region);
+        if (cache != null) {
+            for (Integer id : ids) {
+                cache.evict(TenantKeyGenerator.key(tenant, id));
+            }
+        }
+        // patients embed their admitting doctor; doctor ids are unique enough to drop matches of every hospital
+        if (DOCTORS.equals(region)) {
+            Cache patients = cacheManager.getCache(PATIENTS);
+            if (patients == null) {
+                return;
+            }
+            if (patients.getNativeCache() instanceof ClockCache<?, ?> store) {
+                Set<Integer> doctorIds = new HashSet<>(ids);
+                store.removeIf(value -> value instanceof Patient patient && patient.getAdmittedBy() != null
+                        && doctorIds.contains(patient.getAdmittedBy().getEmployeeId()));
+            } else {
+                patients.clear();
+            }
+        }
+    }
+
+    // A region is cleared for all hospitals
+    private void clear(String region) {
+        Cache cache = cacheManager.getCache(region);
+        if (cache != null) {
+            cache.clear();
+        }
+        if (DOCTORS.equals(region)) {
+            clear(PATIENTS);
+        }
+    }
+}
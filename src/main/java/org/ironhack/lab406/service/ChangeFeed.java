@@ -0,0 +1,57 @@
+package org.ironhack.lab406.service;
+
+import org.ironhack.lab406.controller.dto.ChangesDTO;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Pages through rows in (change sequence, id) order. The token is the position of the last row returned,
+ * {@code "<sequence>:<id>"}, so a page boundary can fall between rows stamped by the same write without
+ * skipping any. No token means a full sync: rows written before the feed existed have sequence 0. A row whose
+ * write has committed but not been stamped yet has no sequence and joins the feed once stamped.
+ */
+final class ChangeFeed {
+
+    private ChangeFeed() {
+    }
+
+    interface Loader<T> {
+        List<T> load(long sequence, int id, Pageable page);
+    }
+
+    static <T> ChangesDTO<T> page(Optional<String> since, int pageSize, Loader<T> loader,
+                                  ToLongFunction<T> sequenceOf, Function<T, Integer> idOf) {
+        long sequence = -1;
+        int id = 0;
+        if (since.isPresent()) {
+            String[] position = since.get().split(":");
+            try {
+                if (position.length != 2) {
+                    throw new NumberFormatException();
+                }
+                sequence = Long.parseLong(position[0]);
+                id = Integer.parseInt(position[1]);
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sync token.");
+            }
+        }
+
+        // One extra row tells whether another page follows
+        List<T> rows = loader.load(sequence, id, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<T> items = hasMore ? rows.subList(0, pageSize) : rows;
+        if (!items.isEmpty()) {
+            T last = items.get(items.size() - 1);
+            sequence = sequenceOf.applyAsLong(last);
+            id = idOf.apply(last);
+        }
+        return new ChangesDTO<>(items, sequence + ":" + id, hasMore);
+    }
+}
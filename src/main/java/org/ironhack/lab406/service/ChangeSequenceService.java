@@ -0,0 +1,224 @@
+package org.ironhack.lab406.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.config.TenantProperties;
+import org.ironhack.lab406.repository.ChangeSequenceRepository;
+import org.ironhack.lab406.repository.DoctorRepository;
+import org.ironhack.lab406.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Change sequences behind the delta-sync endpoints. A write leaves the rows it touches without a sequence
+ * ({@code change_sequence} null), and once it commits they are stamped with the next value of their sequence in a
+ * short transaction of their own. The stamp locks the sequence row for two statements instead of for the whole
+ * write, and since stamps commit in sequence order, a higher number is never visible before a lower one: clients
+ * reading "everything after my token" can't skip a row, they only see a write a moment after it commits.
+ * <p>
+ * Stamping runs on one background thread, so a writer never holds its connection while waiting for another. A
+ * sweep every {@code sync.stamp-sweep-ms} stamps whatever a failed or interrupted stamp left behind.
+ */
+@Service
+public class ChangeSequenceService {
+    public static final String DOCTORS = "doctors";
+    public static final String PATIENTS = "patients";
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeSequenceService.class);
+    private static final String INCREMENT = "update change_sequences set latest = latest + 1 where name = ?";
+    private static final String LATEST = "select latest from change_sequences where name = ?";
+
+    @Autowired
+    private ChangeSequenceRepository changeSequenceRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ObjectProvider<TenantProperties> tenantProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private final Set<List<String>> scheduled = ConcurrentHashMap.newKeySet();
+    private final ExecutorService stamper = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-stamper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // The sweep starts with the scheduler, before the hospital schemas may exist
+    private volatile boolean ready;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerSequences() {
+        for (String name : List.of(DOCTORS, PATIENTS)) {
+            if (!changeSequenceRepository.existsById(name)) {
+                register(name);
+            }
+        }
+        ready = true;
+    }
+
+    /**
+     * Records that the current write left rows of {@code name} unstamped; they are stamped once it commits.
+     */
+    public void pending(String name) {
+        String tenant = TenantContext.get();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(tenant, name);
+                }
+            });
+        } else {
+            schedule(tenant, name);
+        }
+    }
+
+    /**
+     * Stamps every committed row of {@code name} in the current hospital that is still waiting for a sequence.
+     * Runs in a transaction of its own, so call it outside of one.
+     *
+     * @return the number of rows stamped
+     */
+    public int stamp(String name) {
+        // Checking first keeps the sweep from locking the sequence row when there is nothing to stamp
+        Integer stamped = transactionTemplate.execute(status -> switch (name) {
+            case DOCTORS -> doctorRepository.existsByChangeSequenceIsNull() ? doctorRepository.stampPending(next(name)) : 0;
+            case PATIENTS -> patientRepository.existsByChangeSequenceIsNull() ? patientRepository.stampPending(next(name)) : 0;
+            default -> throw new IllegalArgumentException("Unknown change sequence " + name);
+        });
+        return stamped == null ? 0 : stamped;
+    }
+
+    @Scheduled(fixedDelayString = "${sync.stamp-sweep-ms:5000}")
+    public void sweep() {
+        if (!ready) {
+            return;
+        }
+        for (String tenant : tenants()) {
+            for (String name : List.of(DOCTORS, PATIENTS)) {
+                stampQuietly(tenant, name);
+            }
+        }
+    }
+
+    // The increment locks the sequence row until the stamp commits
+    private long next(String name) {
+        // Hospital databases start without sequence rows
+        if (changeSequenceRepository.increment(name) == 0) {
+            register(name);
+            changeSequenceRepository.increment(name);
+        }
+        return changeSequenceRepository.findLatest(name);
+    }
+
+    /**
+     * The next value of {@code name} for writes that stamp their own rows on a plain JDBC connection, such as the
+     * bootstrap loader. The increment runs on {@code connection}, which must not be in auto-commit mode, and holds the
+     * lock until the caller commits it, so keep those transactions to a statement or two.
+     */
+    public long next(Connection connection, String name) throws SQLException {
+        try (PreparedStatement increment = connection.prepareStatement(INCREMENT)) {
+            increment.setString(1, name);
+            if (increment.executeUpdate() == 0) {
+                register(name);
+                increment.executeUpdate();
+            }
+        }
+        try (PreparedStatement latest = connection.prepareStatement(LATEST)) {
+            latest.setString(1, name);
+            try (ResultSet rows = latest.executeQuery()) {
+                rows.next();
+                return rows.getLong(1);
+            }
+        }
+    }
+
+    // Writes committed while a stamp is queued are picked up by it, so one queued stamp per sequence is enough
+    private void schedule(String tenant, String name) {
+        List<String> key = Arrays.asList(tenant, name);
+        if (!scheduled.add(key)) {
+            return;
+        }
+        try {
+            stamper.execute(() -> {
+                scheduled.remove(key);
+                stampQuietly(tenant, name);
+            });
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(key);
+        }
+    }
+
+    private void stampQuietly(String tenant, String name) {
+        TenantContext.set(tenant);
+        try {
+            stamp(name);
+        } catch (DataAccessException e) {
+            log.warn("Stamping {} of {} failed, retrying at the next sweep: {}", name,
+                    tenant == null ? TenantContext.DEFAULT_TENANT : tenant, e.getMessage());
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private List<String> tenants() {
+        List<String> tenants = new ArrayList<>();
+        tenants.add(null);
+        tenantProperties.ifAvailable(properties -> tenants.addAll(properties.getDatasources().keySet()));
+        return tenants;
+    }
+
+    private void register(String name) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transaction.executeWithoutResult(status -> changeSequenceRepository.register(name));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Change sequence {} registered by another node", name);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stamper.shutdownNow();
+    }
+}
@@ -0,0 +1,68 @@
+package org.ironhack.lab406.service;
+
+/**
+ * Consecutive-failure circuit breaker: {@code failureThreshold} database failures in a row open it for
+ * {@code openMillis}, after which a single probe is let through. The probe closes it again or restarts the open period.
+ */
+final class CircuitBreaker {
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private volatile State state = State.CLOSED;
+    private volatile int failures;
+    private long openedAt;
+
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Whether a read may go to the database. Once the open period is over, the first caller becomes the probe.
+     */
+    boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+                state = State.HALF_OPEN;
+                return true;
+            }
+            return state == State.CLOSED;
+        }
+    }
+
+    /**
+     * Whether writes should be refused. Writes never probe; they wait for a read to close the breaker.
+     */
+    boolean isOpen() {
+        if (state == State.CLOSED) {
+            return false;
+        }
+        synchronized (this) {
+            return state == State.HALF_OPEN || (state == State.OPEN && System.currentTimeMillis() - openedAt < openMillis);
+        }
+    }
+
+    void success() {
+        if (state == State.CLOSED && failures == 0) {
+            return;
+        }
+        synchronized (this) {
+            state = State.CLOSED;
+            failures = 0;
+        }
+    }
+
+    synchronized void failure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            failures = 0;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.ironhack.lab406.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Concurrent map bounded by entry count and by total weight. Reads take no lock: a hit only marks its entry as
+ * recently used. Once a write goes over a bound, a clock hand sweeps the entries, giving each marked one a second
+ * chance and evicting the first unmarked one, until the cache is back within bounds. That approximates LRU without
+ * the shared access order an LRU list has to update on every read.
+ */
+public class ClockCache<K, V> {
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong weight = new AtomicLong();
+    private final long maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private Iterator<Map.Entry<K, Entry<V>>> hand;
+
+    public ClockCache(long maxEntries, long maxWeight, ToLongFunction<V> weigher) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public ClockCache(long maxEntries) {
+        this(maxEntries, Long.MAX_VALUE, value -> 0);
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.used) {
+            entry.used = true;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Stores {@code value} unless it alone weighs more than the cache may hold; then any older value is dropped too.
+     *
+     * @return whether the value was stored
+     */
+    public boolean put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maxWeight) {
+            remove(key);
+            return false;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, valueWeight));
+        weight.addAndGet(previous == null ? valueWeight : valueWeight - previous.weight);
+        evictWhileOverBounds();
+        return true;
+    }
+
+    public V putIfAbsent(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        Entry<V> existing = entries.putIfAbsent(key, new Entry<>(value, valueWeight));
+        if (existing != null) {
+            return existing.value;
+        }
+        weight.addAndGet(valueWeight);
+        evictWhileOverBounds();
+        return null;
+    }
+
+    public void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight.addAndGet(-removed.weight);
+        }
+    }
+
+    public void removeIf(Predicate<V> predicate) {
+        entries.forEach((key, entry) -> {
+            if (predicate.test(entry.value) && entries.remove(key, entry)) {
+                weight.addAndGet(-entry.weight);
+            }
+        });
+    }
+
+    public void clear() {
+        entries.forEach((key, entry) -> {
+            if (entries.remove(key, entry)) {
+                weight.addAndGet(-entry.weight);
+            }
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long weight() {
+        return weight.get();
+    }
+
+    // Only writers over a bound get here; one of them sweeps at a time
+    private void evictWhileOverBounds() {
+        if (!overBounds()) {
+            return;
+        }
+        synchronized (this) {
+            while (overBounds()) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<K, Entry<V>> candidate = hand.next();
+                Entry<V> entry = candidate.getValue();
+                if (entry.used) {
+                    entry.used = false;
+                } else if (entries.remove(candidate.getKey(), entry)) {
+                    weight.addAndGet(-entry.weight);
+                }
+            }
+        }
+    }
+
+    private boolean overBounds() {
+        return entries.size() > maxEntries || weight.get() > maxWeight;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private volatile boolean used;
+
+        private Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
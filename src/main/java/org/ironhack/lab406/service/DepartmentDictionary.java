@@ -0,0 +1,190 @@
+package org.ironhack.lab406.service;
+
+import org.ironhack.lab406.config.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps department names to the small integer codes stored in {@code doctors.department_id}, one dictionary per
+ * hospital database. Lookups are served from memory and names are interned, so every cached {@link
+ * org.ironhack.lab406.model.Doctor} of a department shares one String. A miss reloads the table, picking up
+ * departments added by other nodes, at most once per {@code departments.reload-interval-ms}: until then an unknown
+ * name stays unknown without a query, so requests for made-up departments can't turn into a reload each.
+ * <p>
+ * Only {@link #register(String)} adds a department; writes call it before storing a doctor.
+ * Uses plain JDBC on the connection of the caller's transaction when there is one, so a caller holding a pooled
+ * connection never waits for a second. A department registered in a transaction is seen by that transaction at once
+ * and by everyone else once it commits, so one that rolls back is gone with it.
+ */
+@Component
+public class DepartmentDictionary {
+    private static final String SELECT_ALL = "select department_id, name from departments";
+    private static final String INSERT = "insert into departments (name) values (?)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${departments.reload-interval-ms:1000}")
+    private long reloadIntervalMillis;
+
+    private final Map<String, Codes> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * The code of a known department, without ever registering a new one.
+     */
+    public Optional<Short> find(String name) {
+        Codes codes = codes();
+        Short code = codeOf(codes, name);
+        if (code == null && System.currentTimeMillis() - codes.loadedAt >= reloadIntervalMillis) {
+            load(codes);
+            code = codeOf(codes, name);
+        }
+        return Optional.ofNullable(code);
+    }
+
+    /**
+     * The code of a department, registering it first if it is new.
+     */
+    public short register(String name) {
+        Optional<Short> code = find(name);
+        if (code.isPresent()) {
+            return code.get();
+        }
+        return insert(codes(), name);
+    }
+
+    public String nameOf(short code) {
+        Codes codes = codes();
+        String name = nameOf(codes, code);
+        if (name == null) {
+            load(codes);
+            name = nameOf(codes, code);
+            if (name == null) {
+                throw new IllegalStateException("Unknown department code " + code);
+            }
+        }
+        return name;
+    }
+
+    private Codes codes() {
+        String tenant = TenantContext.get();
+        return tenants.computeIfAbsent(tenant == null ? TenantContext.DEFAULT_TENANT : tenant, key -> new Codes());
+    }
+
+    private static Short codeOf(Codes codes, String name) {
+        Short code = codes.byName.get(name);
+        if (code == null) {
+            Codes pending = pending(codes);
+            code = pending == null ? null : pending.byName.get(name);
+        }
+        return code;
+    }
+
+    private static String nameOf(Codes codes, short code) {
+        String name = codes.byCode.get(code);
+        if (name == null) {
+            Codes pending = pending(codes);
+            name = pending == null ? null : pending.byCode.get(code);
+        }
+        return name;
+    }
+
+    // The departments the current transaction registered and hasn't committed yet, if any
+    private static Codes pending(Codes codes) {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                ? (Codes) TransactionSynchronizationManager.getResource(codes) : null;
+    }
+
+    private void load(Codes codes) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(SELECT_ALL)) {
+            // The caller's connection also sees the rows its own transaction inserted; those stay pending
+            Codes pending = pending(codes);
+            while (rows.next()) {
+                if (pending == null || !pending.byCode.containsKey(rows.getShort(1))) {
+                    codes.put(rows.getShort(1), rows.getString(2));
+                }
+            }
+            codes.loadedAt = System.currentTimeMillis();
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not load the department dictionary", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // Two nodes, or two requests, inserting the same name are told apart by the unique name
+    private short insert(Codes codes, String name) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, name);
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                short code = keys.getShort(1);
+                publishOnCommit(codes, code, name);
+                return code;
+            }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Another node registered it first, possibly since the last reload
+            load(codes);
+            Short code = codes.byName.get(name);
+            if (code == null) {
+                throw new IllegalStateException("Could not register department " + name, e);
+            }
+            return code;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not register department " + name, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // Other requests only see the code once the row is committed: a doctor stored with it can't outlive a rollback
+    private static void publishOnCommit(Codes codes, short code, String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            codes.put(code, name);
+            return;
+        }
+        Codes pending = pending(codes);
+        if (pending == null) {
+            Codes registered = new Codes();
+            TransactionSynchronizationManager.bindResource(codes, registered);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(codes);
+                    if (status == STATUS_COMMITTED) {
+                        registered.byCode.forEach(codes::put);
+                    }
+                }
+            });
+            pending = registered;
+        }
+        pending.put(code, name);
+    }
+
+    private static final class Codes {
+        private final Map<String, Short> byName = new ConcurrentHashMap<>();
+        private final Map<Short, String> byCode = new ConcurrentHashMap<>();
+        private volatile long loadedAt = Long.MIN_VALUE / 2;
+
+        private void put(short code, String name) {
+            String interned = name.intern();
+            byCode.put(code, interned);
+            byName.put(interned, code);
+        }
+    }
+}
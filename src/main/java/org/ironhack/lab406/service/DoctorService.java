@@ -1,17 +1,31 @@
 package org.ironhack.lab406.service;
 
+import org.ironhack.lab406.audit.AuditLog;
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.controller.dto.BatchResultDTO;
+import org.ironhack.lab406.controller.dto.ChangesDTO;
 import org.ironhack.lab406.controller.dto.DoctorDTO;
 import org.ironhack.lab406.controller.dto.DoctorDepartmentDTO;
+import org.ironhack.lab406.controller.dto.DoctorSearchDTO;
 import org.ironhack.lab406.controller.dto.DoctorStatusDTO;
+import org.ironhack.lab406.enums.AuditAction;
 import org.ironhack.lab406.enums.EmployeeStatus;
 import org.ironhack.lab406.model.Doctor;
 import org.ironhack.lab406.repository.DoctorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -19,60 +33,167 @@ public class DoctorService {
     @Autowired
     public DoctorRepository doctorRepository;
 
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Autowired
+    private DepartmentDictionary departmentDictionary;
+
+    @Autowired
+    private ChangeSequenceService changeSequenceService;
+
+    @Autowired
+    private ReadResilienceService readResilienceService;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Value("${batch.lookup.chunk-size:500}")
+    private int lookupChunkSize;
+
+    @Value("${batch.lookup.max-ids:5000}")
+    private int lookupMaxIds;
+
+    @Value("${sync.page-size:500}")
+    private int syncPageSize;
+
+    private final SingleFlight<List<Object>, ReadResilienceService.Fetched<List<Doctor>>> doctorQueries = new SingleFlight<>();
+
+    // Not transactional: callers joining an in-flight query must not hold a connection while they wait
     public List<Doctor> getDoctors(Optional<EmployeeStatus> status, Optional<String> department) {
-        if (status.isPresent() && department.isPresent()) {
-            return doctorRepository.findByDepartmentAndStatus(department.get(), status.get());
-        } else if (status.isPresent()) {
-            return doctorRepository.findByStatus(status.get());
-        } else if (department.isPresent()) {
-            return doctorRepository.findByDepartment(department.get());
-        } else {
-            return doctorRepository.findAll();
+        List<Object> arguments = Arrays.asList(status.orElse(null), department.orElse(null));
+        List<Object> key = Arrays.asList(TenantContext.get(), arguments);
+        return readResilienceService.serve(doctorQueries.execute(key, () -> readResilienceService.fetch("doctors", arguments,
+                () -> Collections.unmodifiableList(findDoctors(status.map(List::of).orElse(null), department.map(List::of).orElse(null), null)))));
+    }
+
+    public List<Doctor> search(DoctorSearchDTO doctorSearchDTO) {
+        return readResilienceService.read("doctors-search", Arrays.asList(doctorSearchDTO.getStatus(), doctorSearchDTO.getDepartment(), doctorSearchDTO.getName()),
+                () -> findDoctors(doctorSearchDTO.getStatus(), doctorSearchDTO.getDepartment(), doctorSearchDTO.getName()));
+    }
+
+    public List<Map<String, Object>> searchFields(String fields, DoctorSearchDTO doctorSearchDTO) {
+        List<String> selected = FieldSelection.parse(fields, DoctorRepository.FIELDS);
+        return readResilienceService.read("doctors-search-fields", Arrays.asList(selected, doctorSearchDTO.getStatus(), doctorSearchDTO.getDepartment(), doctorSearchDTO.getName()), () -> {
+            List<String> departments = knownDepartments(doctorSearchDTO.getDepartment());
+            if (departments != null && departments.isEmpty()) {
+                return List.of();
+            }
+            return FieldSelection.toMaps(selected, doctorRepository.searchFields(selected, null, doctorSearchDTO.getStatus(), departments, doctorSearchDTO.getName()));
+        });
+    }
+
+    public Map<String, Object> getDoctorFieldsById(Integer id, String fields) {
+        List<String> selected = FieldSelection.parse(fields, DoctorRepository.FIELDS);
+        return readResilienceService.read("doctor-fields", List.of(id, selected), () -> {
+            List<Object[]> rows = doctorRepository.searchFields(selected, List.of(id), null, null, null);
+            if (rows.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Doctor not found");
+            }
+            return FieldSelection.toMap(selected, rows.get(0));
+        });
+    }
+
+    public BatchResultDTO<Map<String, Object>> getDoctorFieldsByIds(List<Integer> ids, String fields) {
+        List<String> selected = FieldSelection.parse(fields, DoctorRepository.FIELDS);
+        return readResilienceService.read("doctors-fields-by-ids", List.of(ids, selected), () -> {
+            BatchResultDTO<Object[]> rows = BatchLookup.resolve(ids, lookupChunkSize, lookupMaxIds,
+                    chunk -> doctorRepository.searchFields(selected, chunk, null, null, null), row -> (Integer) row[0]);
+            return new BatchResultDTO<>(FieldSelection.toMaps(selected, rows.getFound()), rows.getMissing());
+        });
+    }
+
+    private List<Doctor> findDoctors(Collection<EmployeeStatus> statuses, Collection<String> departments, String namePrefix) {
+        List<String> knownDepartments = knownDepartments(departments);
+        if (knownDepartments != null && knownDepartments.isEmpty()) {
+            return List.of();
+        }
+        return doctorRepository.search(statuses, knownDepartments, namePrefix);
+    }
+
+    // A department that was never registered has no doctors, and querying it would register it
+    private List<String> knownDepartments(Collection<String> departments) {
+        if (departments == null || departments.isEmpty()) {
+            return null;
         }
+        return departments.stream().filter(department -> departmentDictionary.find(department).isPresent()).toList();
     }
 
+    // A stale fallback must not outlive the outage in the cache
+    @Cacheable(cacheNames = CacheInvalidationService.DOCTORS, keyGenerator = "tenantKeyGenerator", unless = "@readResilienceService.servedStale")
     public Doctor getDoctorById(Integer id) {
-        return doctorRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Doctor not found"));
+        return readResilienceService.read("doctor", List.of(id), () ->
+                doctorRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Doctor not found")));
     }
 
-    public Doctor store(DoctorDTO doctorDTO) {
-        Optional<Doctor> doctor = doctorRepository.findById(doctorDTO.getEmployeeId());
-        if (doctor.isEmpty()) {
-            try {
-                Doctor newDoctor = new Doctor(doctorDTO.getEmployeeId(), doctorDTO.getDepartment(), doctorDTO.getName(), doctorDTO.getStatus());
-                return doctorRepository.save(newDoctor);
-            } catch (Exception e) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Department and / or status values not valid.");
-            }
+    public BatchResultDTO<Doctor> getDoctorsByIds(List<Integer> ids) {
+        return readResilienceService.read("doctors-by-ids", List.of(ids), () ->
+                BatchLookup.resolve(ids, lookupChunkSize, lookupMaxIds, doctorRepository::findAllById, Doctor::getEmployeeId));
+    }
 
-        } else {
+    public ChangesDTO<Doctor> getChanges(Optional<String> since) {
+        return readResilienceService.read("doctors-changes", Collections.singletonList(since.orElse(null)), () ->
+                ChangeFeed.page(since, syncPageSize, doctorRepository::findChangedSince, Doctor::getChangeSequence, Doctor::getEmployeeId));
+    }
+
+    /**
+     * One INSERT, no existence check: the primary key rejects a taken employeeId, also when two requests race for it.
+     */
+    @Transactional
+    public Doctor store(DoctorDTO doctorDTO) {
+        departmentDictionary.register(doctorDTO.getDepartment());
+        Doctor newDoctor = new Doctor(doctorDTO.getEmployeeId(), doctorDTO.getDepartment(), doctorDTO.getName(), doctorDTO.getStatus());
+        // Stamped with its change sequence once committed
+        newDoctor.setChangeSequence(null);
+        changeSequenceService.pending(ChangeSequenceService.DOCTORS);
+        Doctor saved;
+        try {
+            saved = doctorRepository.saveAndFlush(newDoctor);
+        } catch (DataIntegrityViolationException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The employeeId already exists in the system.");
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Department and / or status values not valid.");
         }
+        auditLog.record(AuditAction.DOCTOR_CREATED, saved.getEmployeeId(), saved.getDepartment() + " " + saved.getStatus());
+        return saved;
     }
 
+    @Transactional
     public void updateStatus(Integer id, DoctorStatusDTO statusDTO) {
         Optional<Doctor> doctor = doctorRepository.findById(id);
         if (doctor.isPresent()) {
+            EmployeeStatus previous = doctor.get().getStatus();
+            doctor.get().setStatus(statusDTO.getStatus());
+            cacheInvalidationService.changed(CacheInvalidationService.DOCTORS, id);
+            doctor.get().setChangeSequence(null);
+            changeSequenceService.pending(ChangeSequenceService.DOCTORS);
             try {
-                doctor.get().setStatus(statusDTO.getStatus());
-                doctorRepository.save(doctor.get());
+                doctorRepository.saveAndFlush(doctor.get());
             } catch (Exception e) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Status value not valid.");
             }
+            auditLog.record(AuditAction.DOCTOR_STATUS_CHANGED, id, previous + " -> " + statusDTO.getStatus());
         } else {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The employeeId doesn't exist.");
         }
     }
 
+    @Transactional
     public void updateDepartment(Integer id, DoctorDepartmentDTO doctorDepartmentDTO) {
         Optional<Doctor> doctor = doctorRepository.findById(id);
         if (doctor.isPresent()) {
+            String previous = doctor.get().getDepartment();
+            departmentDictionary.register(doctorDepartmentDTO.getDepartment());
+            doctor.get().setDepartment(doctorDepartmentDTO.getDepartment());
+            cacheInvalidationService.changed(CacheInvalidationService.DOCTORS, id);
+            doctor.get().setChangeSequence(null);
+            changeSequenceService.pending(ChangeSequenceService.DOCTORS);
             try {
-                doctor.get().setDepartment(doctorDepartmentDTO.getDepartment());
-                doctorRepository.save(doctor.get());
+                doctorRepository.saveAndFlush(doctor.get());
             } catch (Exception e) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Department value not valid.");
             }
+            auditLog.record(AuditAction.DOCTOR_DEPARTMENT_CHANGED, id, previous + " -> " + doctorDepartmentDTO.getDepartment());
         } else {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The employeeId doesn't exist.");
         }
@@ -0,0 +1,77 @@
+package org.ironhack.lab406.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+
+/**
+ * Sparse fieldsets ({@code ?fields=employeeId,status}). A requested field that names a nested object, like
+ * {@code admittedBy}, stands for all of its fields. Rows come back from the search fragments as
+ * {@code [id, field values...]} and are turned into maps holding only the requested fields, nested on the dots.
+ */
+final class FieldSelection {
+
+    private FieldSelection() {
+    }
+
+    /**
+     * The requested fields in the order of {@code allFields}, which is the order the repositories select them in.
+     */
+    static List<String> parse(String fields, List<String> allFields) {
+        Set<String> requested = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            List<String> expanded = allFields.stream().filter(candidate -> candidate.startsWith(name + ".")).toList();
+            if (allFields.contains(name)) {
+                requested.add(name);
+            } else if (!expanded.isEmpty()) {
+                requested.addAll(expanded);
+            } else {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + name);
+            }
+        }
+        if (requested.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one field is required.");
+        }
+        return allFields.stream().filter(requested::contains).toList();
+    }
+
+    static List<Map<String, Object>> toMaps(List<String> fields, List<Object[]> rows) {
+        List<Map<String, Object>> maps = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            maps.add(toMap(fields, row));
+        }
+        return maps;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> toMap(List<String> fields, Object[] row) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String field = fields.get(i);
+            Object value = row[i + 1];
+            int dot = field.indexOf('.');
+            if (dot < 0) {
+                map.put(field, value);
+                continue;
+            }
+            // A missing association (no admitting doctor) stays null instead of an object full of nulls
+            String parent = field.substring(0, dot);
+            if (value == null) {
+                map.putIfAbsent(parent, null);
+            } else {
+                Map<String, Object> nested = (Map<String, Object>) map.get(parent);
+                if (nested == null) {
+                    nested = new LinkedHashMap<>();
+                    map.put(parent, nested);
+                }
+                nested.put(field.substring(dot + 1), value);
+            }
+        }
+        return map;
+    }
+}
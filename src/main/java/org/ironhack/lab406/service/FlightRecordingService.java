@@ -0,0 +1,111 @@
+package org.ironhack.lab406.service;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.ironhack.lab406.monitoring.RepositoryCallEvent;
+import org.ironhack.lab406.monitoring.ServiceCallEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * On-demand flight recordings. Uses the JDK "default" settings (the low-overhead profile intended for
+ * continuous use in production) plus the service and repository call events, kept in a bounded ring on disk.
+ * Like the JDK's own latency events, the call events only keep calls that take at least
+ * {@code jfr.call-threshold-ms}: committing one costs about a microsecond, which every fast call paying it would add
+ * up to more than 1% of a request served from memory.
+ */
+@Service
+public class FlightRecordingService {
+    private static final Logger log = LoggerFactory.getLogger(FlightRecordingService.class);
+    private static final String RECORDING_NAME = "lab406";
+
+    @Value("${jfr.call-threshold-ms:1}")
+    private long callThresholdMillis;
+
+    private Recording recording;
+
+    public synchronized String start(Duration maxAge) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A recording is already running.");
+        }
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (IOException | ParseException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "The recording settings could not be loaded.");
+        }
+        recording.setName(RECORDING_NAME);
+        recording.enable(ServiceCallEvent.class).withThreshold(Duration.ofMillis(callThresholdMillis));
+        recording.enable(RepositoryCallEvent.class).withThreshold(Duration.ofMillis(callThresholdMillis));
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.start();
+        return recording.getState().name();
+    }
+
+    /**
+     * Dumps the recording to a temporary file and streams it from there, so a large recording never sits in memory.
+     * The file is deleted once it has been written to the response.
+     */
+    public StreamingResponseBody dump() {
+        Path file = dumpToFile();
+        return output -> {
+            try {
+                Files.copy(file, output);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+    }
+
+    public synchronized String stop() {
+        Recording current = running();
+        current.stop();
+        current.close();
+        recording = null;
+        return RecordingState.CLOSED.name();
+    }
+
+    private synchronized Path dumpToFile() {
+        Recording current = running();
+        Path file = null;
+        try {
+            file = Files.createTempFile(RECORDING_NAME, ".jfr");
+            current.dump(file);
+            return file;
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Recording running() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "There is no recording running.");
+        }
+        return recording;
+    }
+}
@@ -0,0 +1,103 @@
+package org.ironhack.lab406.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Buffers rows and writes them {@code rowsPerStatement} at a time as one {@code INSERT ... VALUES (...), (...)}
+ * statement, so a million rows cost a thousand round trips instead of a million. The full-size statement is prepared
+ * once and reused; only the last, shorter batch gets its own.
+ * <p>
+ * The last value of every row is a stamp taken once per statement, in the statement's own transaction: each
+ * statement commits on its own, right after it ran.
+ */
+final class MultiRowInsert implements AutoCloseable {
+    /**
+     * Supplies the stamp of the next statement on the insert's connection.
+     */
+    @FunctionalInterface
+    interface Stamp {
+        long next() throws SQLException;
+    }
+
+    private final Connection connection;
+    private final String prefix;
+    private final String rowTemplate;
+    private final int parameters;
+    private final Stamp stamp;
+    private final Object[][] rows;
+    private PreparedStatement full;
+    private int buffered;
+    private long written;
+
+    /**
+     * @param connection  a connection with auto-commit off
+     * @param prefix      {@code insert into table (columns) values }
+     * @param rowTemplate one row of values, ending with the stamp, e.g. {@code (?, ?, ?)}
+     */
+    MultiRowInsert(Connection connection, String prefix, String rowTemplate, int rowsPerStatement, Stamp stamp) {
+        this.connection = connection;
+        this.prefix = prefix;
+        this.rowTemplate = rowTemplate;
+        this.parameters = (int) rowTemplate.chars().filter(c -> c == '?').count() - 1;
+        this.stamp = stamp;
+        this.rows = new Object[rowsPerStatement][];
+    }
+
+    void add(Object... values) throws SQLException {
+        rows[buffered++] = values;
+        if (buffered == rows.length) {
+            if (full == null) {
+                full = connection.prepareStatement(sql(rows.length));
+            }
+            execute(full);
+        }
+    }
+
+    void flush() throws SQLException {
+        if (buffered > 0) {
+            try (PreparedStatement partial = connection.prepareStatement(sql(buffered))) {
+                execute(partial);
+            }
+        }
+    }
+
+    long getWritten() {
+        return written;
+    }
+
+    private void execute(PreparedStatement statement) throws SQLException {
+        long value = stamp.next();
+        int index = 1;
+        for (int row = 0; row < buffered; row++) {
+            for (int column = 0; column < parameters; column++) {
+                statement.setObject(index++, rows[row][column]);
+            }
+            statement.setLong(index++, value);
+            rows[row] = null;
+        }
+        statement.executeUpdate();
+        connection.commit();
+        written += buffered;
+        buffered = 0;
+    }
+
+    private String sql(int rowCount) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rowCount * (rowTemplate.length() + 2)).append(prefix);
+        for (int row = 0; row < rowCount; row++) {
+            if (row > 0) {
+                sql.append(", ");
+            }
+            sql.append(rowTemplate);
+        }
+        return sql.toString();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (full != null) {
+            full.close();
+        }
+    }
+}
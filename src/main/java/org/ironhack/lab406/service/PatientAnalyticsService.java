@@ -0,0 +1,155 @@
+package org.ironhack.lab406.service;
+
+import jakarta.annotation.PostConstruct;
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.config.TenantProperties;
+import org.ironhack.lab406.controller.dto.AnalyticsSnapshotDTO;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Reporting queries served from a periodically rebuilt {@link PatientSnapshot} instead of the OLTP tables.
+ * The snapshot is replaced atomically, so readers never wait for a refresh and always see a consistent copy.
+ * Every hospital database has its own snapshot, and a request reads the one of its hospital.
+ */
+@Service
+public class PatientAnalyticsService {
+    private static final Logger log = LoggerFactory.getLogger(PatientAnalyticsService.class);
+    private static final int AGE_BUCKETS = 11;
+    private static final byte OFF = (byte) EmployeeStatus.OFF.ordinal();
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ObjectProvider<TenantProperties> tenantProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private final Map<String, PatientSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        // A stream needs its transaction open until the last row is read
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.snapshot.refresh-ms:60000}")
+    public void refreshAll() {
+        List<String> tenants = new ArrayList<>();
+        tenants.add(null);
+        tenantProperties.ifAvailable(properties -> tenants.addAll(properties.getDatasources().keySet()));
+        for (String tenant : tenants) {
+            TenantContext.set(tenant);
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                // A hospital that can't be read keeps its previous snapshot
+                log.warn("Analytics snapshot of {} not rebuilt: {}", currentTenant(), e.getMessage());
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot of the current hospital. The rows go straight from the cursor into the columns, so only
+     * one fetch of them is on the heap at a time.
+     */
+    public void refresh() {
+        long start = System.nanoTime();
+        PatientSnapshot next = transactionTemplate.execute(status -> {
+            try (Stream<Object[]> rows = patientRepository.streamAnalyticsRows()) {
+                return PatientSnapshot.of(rows);
+            }
+        });
+        snapshots.put(currentTenant(), next);
+        log.debug("Analytics snapshot of {} rebuilt with {} patients in {} ms", currentTenant(), next.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Patients per age decade ("0-9", "10-19", ... "100+"), ages approximated from days since birth.
+     */
+    public Map<String, Long> getAgeDistribution() {
+        PatientSnapshot current = snapshot();
+        int today = (int) LocalDate.now().toEpochDay();
+        long[] buckets = IntStream.range(0, current.size()).parallel()
+                .collect(() -> new long[AGE_BUCKETS],
+                        (counts, i) -> counts[ageBucket(today - current.dateOfBirth[i])]++,
+                        PatientAnalyticsService::sum);
+
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < AGE_BUCKETS; bucket++) {
+            String label = bucket == AGE_BUCKETS - 1 ? bucket * 10 + "+" : bucket * 10 + "-" + (bucket * 10 + 9);
+            distribution.put(label, buckets[bucket]);
+        }
+        return distribution;
+    }
+
+    public Map<String, Long> getAdmissionsPerDepartment() {
+        PatientSnapshot current = snapshot();
+        long[] counts = IntStream.range(0, current.size()).parallel()
+                .filter(i -> current.department[i] >= 0)
+                .collect(() -> new long[current.departments.length],
+                        (acc, i) -> acc[current.department[i]]++,
+                        PatientAnalyticsService::sum);
+
+        Map<String, Long> admissions = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            admissions.put(current.departments[i], counts[i]);
+        }
+        return admissions;
+    }
+
+    public long getPatientsUnderOffDoctors() {
+        PatientSnapshot current = snapshot();
+        return IntStream.range(0, current.size()).parallel()
+                .filter(i -> current.status[i] == OFF)
+                .count();
+    }
+
+    public AnalyticsSnapshotDTO getSnapshotStats() {
+        PatientSnapshot current = snapshot();
+        return new AnalyticsSnapshotDTO(current.size(), current.doctorIds.length, current.departments.length,
+                PatientSnapshot.BYTES_PER_PATIENT, current.columnBytes(), current.builtAt);
+    }
+
+    private PatientSnapshot snapshot() {
+        return snapshots.getOrDefault(currentTenant(), PatientSnapshot.EMPTY);
+    }
+
+    private static String currentTenant() {
+        return TenantContext.get() == null ? TenantContext.DEFAULT_TENANT : TenantContext.get();
+    }
+
+    private static int ageBucket(int days) {
+        int years = (int) ((long) Math.max(days, 0) * 400 / 146_097);
+        return Math.min(years / 10, AGE_BUCKETS - 1);
+    }
+
+    private static void sum(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+}
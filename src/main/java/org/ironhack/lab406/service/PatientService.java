@@ -1,22 +1,30 @@
 package org.ironhack.lab406.service;
 
 import io.micrometer.common.util.StringUtils;
+import org.ironhack.lab406.audit.AuditLog;
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.controller.dto.BatchResultDTO;
+import org.ironhack.lab406.controller.dto.ChangesDTO;
 import org.ironhack.lab406.controller.dto.PatientDTO;
+import org.ironhack.lab406.controller.dto.PatientSearchDTO;
+import org.ironhack.lab406.controller.dto.ReassignmentDTO;
+import org.ironhack.lab406.enums.AuditAction;
 import org.ironhack.lab406.enums.EmployeeStatus;
 import org.ironhack.lab406.model.Doctor;
 import org.ironhack.lab406.model.Patient;
 import org.ironhack.lab406.repository.DoctorRepository;
 import org.ironhack.lab406.repository.PatientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Service
 public class PatientService {
@@ -27,27 +35,144 @@ public class PatientService {
     @Autowired
     private DoctorRepository doctorRepository;
 
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Autowired
+    private DepartmentDictionary departmentDictionary;
+
+    @Autowired
+    private ChangeSequenceService changeSequenceService;
+
+    @Autowired
+    private ReadResilienceService readResilienceService;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Value("${batch.lookup.chunk-size:500}")
+    private int lookupChunkSize;
+
+    @Value("${batch.lookup.max-ids:5000}")
+    private int lookupMaxIds;
+
+    @Value("${sync.page-size:500}")
+    private int syncPageSize;
+
+    private final SingleFlight<List<Object>, ReadResilienceService.Fetched<List<Patient>>> patientQueries = new SingleFlight<>();
+    private final SingleFlight<List<Object>, ReadResilienceService.Fetched<List<Map<String, Object>>>> patientFieldQueries = new SingleFlight<>();
+
     public List<Patient> getPatients() {
-        return patientRepository.findAll();
+        return readResilienceService.read("patients", List.of(), () -> patientRepository.findAll());
     }
 
+    // A stale fallback must not outlive the outage in the cache
+    @Cacheable(cacheNames = CacheInvalidationService.PATIENTS, keyGenerator = "tenantKeyGenerator", unless = "@readResilienceService.servedStale")
     public Patient getPatientById(Integer id) {
-        return patientRepository.findById(id).orElseThrow(() ->
-                new ResponseStatusException(HttpStatus.NOT_FOUND, "Patient not found"));
+        return readResilienceService.read("patient", List.of(id), () -> patientRepository.findById(id).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Patient not found")));
+    }
+
+    public BatchResultDTO<Patient> getPatientsByIds(List<Integer> ids) {
+        return readResilienceService.read("patients-by-ids", List.of(ids), () ->
+                BatchLookup.resolve(ids, lookupChunkSize, lookupMaxIds, patientRepository::findAllById, Patient::getPatientId));
     }
 
     public List<Patient> getByDateOfBirthBetween(Date start, Date end) {
-        return patientRepository.findByDateOfBirthBetween(start, end);
+        return readResilienceService.read("patients-by-date-of-birth", Arrays.asList(start, end), () -> patientRepository.findByDateOfBirthBetween(start, end));
+    }
+
+    public List<Patient> search(PatientSearchDTO patientSearchDTO) {
+        return readResilienceService.read("patients-search", searchArguments(patientSearchDTO), () -> {
+            if (patientSearchDTO.getDepartment() != null && departmentDictionary.find(patientSearchDTO.getDepartment()).isEmpty()) {
+                return List.of();
+            }
+            return patientRepository.search(patientSearchDTO.getBornFrom(), patientSearchDTO.getBornTo(), patientSearchDTO.getDepartment(),
+                    patientSearchDTO.getDoctorStatus(), patientSearchDTO.getDoctorId());
+        });
+    }
+
+    public List<Map<String, Object>> searchFields(String fields, PatientSearchDTO patientSearchDTO) {
+        List<String> selected = FieldSelection.parse(fields, PatientRepository.FIELDS);
+        List<Object> arguments = new ArrayList<>(searchArguments(patientSearchDTO));
+        arguments.add(selected);
+        return readResilienceService.read("patients-search-fields", arguments, () -> findFields(selected, patientSearchDTO));
+    }
+
+    private List<Map<String, Object>> findFields(List<String> selected, PatientSearchDTO patientSearchDTO) {
+        if (patientSearchDTO.getDepartment() != null && departmentDictionary.find(patientSearchDTO.getDepartment()).isEmpty()) {
+            return List.of();
+        }
+        return FieldSelection.toMaps(selected, patientRepository.searchFields(selected, null, patientSearchDTO.getBornFrom(), patientSearchDTO.getBornTo(),
+                patientSearchDTO.getDepartment(), patientSearchDTO.getDoctorStatus(), patientSearchDTO.getDoctorId()));
+    }
+
+    private static List<Object> searchArguments(PatientSearchDTO patientSearchDTO) {
+        return Arrays.asList(patientSearchDTO.getBornFrom(), patientSearchDTO.getBornTo(), patientSearchDTO.getDepartment(),
+                patientSearchDTO.getDoctorStatus(), patientSearchDTO.getDoctorId());
+    }
+
+    public Map<String, Object> getPatientFieldsById(Integer id, String fields) {
+        List<String> selected = FieldSelection.parse(fields, PatientRepository.FIELDS);
+        return readResilienceService.read("patient-fields", List.of(id, selected), () -> {
+            List<Object[]> rows = patientRepository.searchFields(selected, List.of(id), null, null, null, null, null);
+            if (rows.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Patient not found");
+            }
+            return FieldSelection.toMap(selected, rows.get(0));
+        });
+    }
+
+    public BatchResultDTO<Map<String, Object>> getPatientFieldsByIds(List<Integer> ids, String fields) {
+        List<String> selected = FieldSelection.parse(fields, PatientRepository.FIELDS);
+        return readResilienceService.read("patients-fields-by-ids", List.of(ids, selected), () -> {
+            BatchResultDTO<Object[]> rows = BatchLookup.resolve(ids, lookupChunkSize, lookupMaxIds,
+                    chunk -> patientRepository.searchFields(selected, chunk, null, null, null, null, null), row -> (Integer) row[0]);
+            return new BatchResultDTO<>(FieldSelection.toMaps(selected, rows.getFound()), rows.getMissing());
+        });
     }
 
+    // Not transactional: callers joining an in-flight query must not hold a connection while they wait
     public List<Patient> getByAdmittedByDepartment(String department) {
-        return patientRepository.findByAdmittedByDepartment(department);
+        List<Object> key = Arrays.asList(TenantContext.get(), "doctor-department", department);
+        return readResilienceService.serve(patientQueries.execute(key, () -> readResilienceService.fetch("patients-by-doctor-department", List.of(department), () -> {
+            if (departmentDictionary.find(department).isEmpty()) {
+                return List.of();
+            }
+            return Collections.unmodifiableList(patientRepository.findByAdmittedByDepartment(department));
+        })));
     }
 
     public List<Patient> getByAdmittedByStatus() {
-        return patientRepository.findByAdmittedByStatus(EmployeeStatus.OFF);
+        List<Object> key = Arrays.asList(TenantContext.get(), "off-doctor");
+        return readResilienceService.serve(patientQueries.execute(key, () -> readResilienceService.fetch("patients-off-doctor", List.of(),
+                () -> Collections.unmodifiableList(patientRepository.findByAdmittedByStatus(EmployeeStatus.OFF)))));
+    }
+
+    public List<Map<String, Object>> getFieldsByAdmittedByDepartment(String department, String fields) {
+        return sharedSearchFields(fields, new PatientSearchDTO(null, null, department, null, null));
+    }
+
+    public List<Map<String, Object>> getFieldsByAdmittedByStatus(String fields) {
+        return sharedSearchFields(fields, new PatientSearchDTO(null, null, null, EmployeeStatus.OFF, null));
+    }
+
+    // Like the full-row lists, concurrent identical requests share one query
+    private List<Map<String, Object>> sharedSearchFields(String fields, PatientSearchDTO patientSearchDTO) {
+        List<String> selected = FieldSelection.parse(fields, PatientRepository.FIELDS);
+        List<Object> arguments = new ArrayList<>(searchArguments(patientSearchDTO));
+        arguments.add(selected);
+        List<Object> key = Arrays.asList(TenantContext.get(), arguments);
+        return readResilienceService.serve(patientFieldQueries.execute(key, () -> readResilienceService.fetch("patients-search-fields", arguments,
+                () -> Collections.unmodifiableList(findFields(selected, patientSearchDTO)))));
     }
 
+    public ChangesDTO<Patient> getChanges(Optional<String> since) {
+        return readResilienceService.read("patients-changes", Collections.singletonList(since.orElse(null)), () ->
+                ChangeFeed.page(since, syncPageSize, patientRepository::findChangedSince, Patient::getChangeSequence, Patient::getPatientId));
+    }
+
+    @Transactional
     public Patient store(PatientDTO patientDTO) {
         Optional<Doctor> doctor = doctorRepository.findById(patientDTO.getDoctorId());
 
@@ -55,29 +180,37 @@ public class PatientService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The employeeId of the doctor doesn't exist.");
         }
 
-        List<Patient> patient = patientRepository.findAll();
         Patient newPatient = null;
         try {
             newPatient = new Patient(patientDTO.getName(), new SimpleDateFormat("yyyy-MM-dd").parse(patientDTO.getDateOfBirth()), doctor.get());
         } catch (ParseException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Wrong date format.");
         }
-        if (!patient.contains(newPatient)) {
-            return patientRepository.save(newPatient);
+        if (!patientRepository.existsByNameAndDateOfBirthAndAdmittedByEmployeeId(newPatient.getName(), newPatient.getDateOfBirth(),
+                doctor.get().getEmployeeId())) {
+            newPatient.setChangeSequence(null);
+            changeSequenceService.pending(ChangeSequenceService.PATIENTS);
+            Patient saved = patientRepository.save(newPatient);
+            auditLog.record(AuditAction.PATIENT_ADMITTED, saved.getPatientId(), "admittedBy=" + doctor.get().getEmployeeId());
+            return saved;
         } else {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "This patient already exists in the system.");
         }
     }
 
+    @Transactional
     public void update(int id, PatientDTO patientDTO) {
         Optional<Patient> patient = patientRepository.findById(id);
         if (patient.isPresent()) {
+            List<String> changes = new ArrayList<>();
             if (StringUtils.isNotBlank(patientDTO.getName())) {
                 patient.get().setName(patientDTO.getName());
+                changes.add("name");
             }
             if (patientDTO.getDateOfBirth() != null) {
                 try {
                     patient.get().setDateOfBirth(new SimpleDateFormat("yyyy-MM-dd").parse(patientDTO.getDateOfBirth()));
+                    changes.add("dateOfBirth");
                 } catch (ParseException e) {
                     throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Wrong date format.");
                 }
@@ -86,13 +219,89 @@ public class PatientService {
                 Optional<Doctor> doctor = doctorRepository.findById(patientDTO.getDoctorId());
                 if (doctor.isPresent()) {
                     patient.get().setAdmittedBy(doctor.get());
+                    changes.add("admittedBy=" + doctor.get().getEmployeeId());
                 } else {
                     throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The employeeId of the doctor doesn't exist.");
                 }
             }
-            patientRepository.save(patient.get());
+            cacheInvalidationService.changed(CacheInvalidationService.PATIENTS, id);
+            patient.get().setChangeSequence(null);
+            changeSequenceService.pending(ChangeSequenceService.PATIENTS);
+            patientRepository.saveAndFlush(patient.get());
+            auditLog.record(AuditAction.PATIENT_UPDATED, id, String.join(",", changes));
         } else {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The patientId doesn't exist.");
         }
     }
+
+    /**
+     * Moves the patients of OFF doctors (a single doctor, or every OFF doctor of a department) to the ON / ON_CALL
+     * doctors of the same department, filling up the least loaded doctors first. Orphaned ids are sorted and cut
+     * into one contiguous id range per receiving doctor, so the work is one UPDATE per receiving doctor regardless
+     * of how many patients move.
+     */
+    @Transactional
+    public ReassignmentDTO reassignOffDoctorPatients(Optional<Integer> doctorId, Optional<String> department) {
+        List<Integer> sources;
+        String targetDepartment;
+        if (doctorId.isPresent()) {
+            Doctor doctor = doctorRepository.findById(doctorId.get()).orElseThrow(() ->
+                    new ResponseStatusException(HttpStatus.NOT_FOUND, "The employeeId doesn't exist."));
+            if (doctor.getStatus() != EmployeeStatus.OFF) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only patients of OFF doctors can be reassigned.");
+            }
+            sources = List.of(doctor.getEmployeeId());
+            targetDepartment = doctor.getDepartment();
+        } else if (department.isPresent()) {
+            if (departmentDictionary.find(department.get()).isEmpty()) {
+                return new ReassignmentDTO(0, Map.of());
+            }
+            sources = doctorRepository.findByDepartmentAndStatus(department.get(), EmployeeStatus.OFF).stream()
+                    .map(Doctor::getEmployeeId)
+                    .toList();
+            targetDepartment = department.get();
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A doctorId or a department is required.");
+        }
+
+        if (sources.isEmpty()) {
+            return new ReassignmentDTO(0, Map.of());
+        }
+        List<Integer> orphans = patientRepository.findIdsByAdmittedByIn(sources);
+        if (orphans.isEmpty()) {
+            return new ReassignmentDTO(0, Map.of());
+        }
+
+        List<Object[]> loads = doctorRepository.findLoadByDepartmentAndStatusIn(targetDepartment, List.of(EmployeeStatus.ON, EmployeeStatus.ON_CALL));
+        if (loads.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "There are no ON or ON_CALL doctors in the department.");
+        }
+
+        // [current load, employeeId], least loaded first, ties broken by employeeId
+        PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.<long[]>comparingLong(load -> load[0]).thenComparingLong(load -> load[1]));
+        for (Object[] load : loads) {
+            queue.add(new long[]{(Long) load[1], (Integer) load[0]});
+        }
+        Map<Integer, Integer> assignments = new TreeMap<>();
+        for (int i = 0; i < orphans.size(); i++) {
+            long[] least = queue.poll();
+            least[0]++;
+            assignments.merge((int) least[1], 1, Integer::sum);
+            queue.add(least);
+        }
+
+        cacheInvalidationService.changed(CacheInvalidationService.PATIENTS, orphans);
+        changeSequenceService.pending(ChangeSequenceService.PATIENTS);
+        int position = 0;
+        int reassigned = 0;
+        for (Map.Entry<Integer, Integer> assignment : assignments.entrySet()) {
+            Integer fromId = orphans.get(position);
+            Integer toId = orphans.get(position + assignment.getValue() - 1);
+            int moved = patientRepository.reassignRange(assignment.getKey(), sources, fromId, toId);
+            auditLog.record(AuditAction.PATIENTS_REASSIGNED, assignment.getKey(), moved + " patients, ids " + fromId + ".." + toId + " from " + sources);
+            reassigned += moved;
+            position += assignment.getValue();
+        }
+        return new ReassignmentDTO(reassigned, assignments);
+    }
 }
@@ -0,0 +1,98 @@
+package org.ironhack.lab406.service;
+
+import org.ironhack.lab406.enums.EmployeeStatus;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Immutable column-oriented copy of the patients table used by the analytics endpoints.
+ * One slot per patient in each array; -1 marks a patient without an admitting doctor.
+ */
+final class PatientSnapshot {
+    static final PatientSnapshot EMPTY = new PatientSnapshot(new int[0], new int[0], new short[0], new byte[0], new int[0], new String[0], 0L);
+
+    static final int BYTES_PER_PATIENT = Integer.BYTES + Integer.BYTES + Short.BYTES + Byte.BYTES;
+
+    final int[] dateOfBirth;
+    final int[] doctor;
+    final short[] department;
+    final byte[] status;
+    final int[] doctorIds;
+    final String[] departments;
+    final long builtAt;
+
+    private PatientSnapshot(int[] dateOfBirth, int[] doctor, short[] department, byte[] status, int[] doctorIds, String[] departments, long builtAt) {
+        this.dateOfBirth = dateOfBirth;
+        this.doctor = doctor;
+        this.department = department;
+        this.status = status;
+        this.doctorIds = doctorIds;
+        this.departments = departments;
+        this.builtAt = builtAt;
+    }
+
+    /**
+     * Builds a snapshot from rows of {@code [dateOfBirth, employeeId, department, status]}, one at a time.
+     */
+    static PatientSnapshot of(Stream<Object[]> rows) {
+        Builder builder = new Builder();
+        rows.forEach(builder::add);
+        return builder.build();
+    }
+
+    int size() {
+        return dateOfBirth.length;
+    }
+
+    long columnBytes() {
+        return (long) size() * BYTES_PER_PATIENT + (long) doctorIds.length * Integer.BYTES;
+    }
+
+    // Columns grow by half as rows come in and are trimmed to the row count once the last one is read
+    private static final class Builder {
+        private int size;
+        private int[] dateOfBirth = new int[1024];
+        private int[] doctor = new int[1024];
+        private short[] department = new short[1024];
+        private byte[] status = new byte[1024];
+        private final Map<Integer, Integer> doctorIndex = new HashMap<>();
+        private final Map<String, Short> departmentIndex = new HashMap<>();
+
+        void add(Object[] row) {
+            if (size == dateOfBirth.length) {
+                int capacity = size + (size >> 1);
+                dateOfBirth = Arrays.copyOf(dateOfBirth, capacity);
+                doctor = Arrays.copyOf(doctor, capacity);
+                department = Arrays.copyOf(department, capacity);
+                status = Arrays.copyOf(status, capacity);
+            }
+            int i = size++;
+            dateOfBirth[i] = (int) Instant.ofEpochMilli(((Date) row[0]).getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+            if (row[1] == null) {
+                doctor[i] = -1;
+                department[i] = -1;
+                status[i] = -1;
+                return;
+            }
+            doctor[i] = doctorIndex.computeIfAbsent((Integer) row[1], id -> doctorIndex.size());
+            department[i] = departmentIndex.computeIfAbsent((String) row[2], name -> (short) departmentIndex.size());
+            status[i] = (byte) ((EmployeeStatus) row[3]).ordinal();
+        }
+
+        PatientSnapshot build() {
+            int[] doctorIds = new int[doctorIndex.size()];
+            doctorIndex.forEach((id, index) -> doctorIds[index] = id);
+            String[] departments = new String[departmentIndex.size()];
+            departmentIndex.forEach((name, index) -> departments[index] = name);
+
+            return new PatientSnapshot(Arrays.copyOf(dateOfBirth, size), Arrays.copyOf(doctor, size), Arrays.copyOf(department, size),
+                    Arrays.copyOf(status, size), doctorIds, departments, System.currentTimeMillis());
+        }
+    }
+}
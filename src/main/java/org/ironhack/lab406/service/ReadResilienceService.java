@@ -0,0 +1,250 @@
+package org.ironhack.lab406.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletResponse;
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.controller.dto.BatchResultDTO;
+import org.ironhack.lab406.controller.dto.ChangesDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the doctor and patient reads answering while the database is slow or unavailable. Every read runs in a
+ * read-only transaction whose timeout is the DB-time budget of its endpoint
+ * ({@code resilience.read.budget-seconds.<endpoint>}, whole seconds because that is the resolution of JDBC query
+ * timeouts). A read that fails or runs over its budget counts against the hospital's {@link CircuitBreaker} and is
+ * answered with the last result of the same read, marked with {@value #STALE_HEADER} and {@code Age}, while a
+ * background refresh retries the database. Without such a result the request fails with 503; while the breaker is
+ * open reads go straight to the last result and writes are refused before they wait for a connection.
+ * <p>
+ * Last results are kept up to {@code resilience.read.max-entries} reads and {@code resilience.read.max-rows} rows in
+ * total in a {@link ClockCache}, so reads record their results without a shared lock and the least recently used
+ * go first; a single result larger than the row limit is not kept at all.
+ */
+@Service
+public class ReadResilienceService {
+    public static final String STALE_HEADER = "X-Data-Stale";
+
+    private static final Logger log = LoggerFactory.getLogger(ReadResilienceService.class);
+
+    private final PlatformTransactionManager transactionManager;
+    private final Environment environment;
+    private final int defaultBudgetSeconds;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final ClockCache<List<Object>, Fetched<?>> lastGood;
+    private final ThreadLocal<Boolean> servedStale = new ThreadLocal<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, TransactionTemplate> transactions = new ConcurrentHashMap<>();
+    private final Set<List<Object>> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher;
+
+    public ReadResilienceService(PlatformTransactionManager transactionManager, Environment environment,
+                                 @Value("${resilience.read.budget-seconds:2}") int defaultBudgetSeconds,
+                                 @Value("${resilience.read.failure-threshold:5}") int failureThreshold,
+                                 @Value("${resilience.read.open-ms:10000}") long openMillis,
+                                 @Value("${resilience.read.max-entries:1000}") int maxEntries,
+                                 @Value("${resilience.read.max-rows:100000}") long maxRows) {
+        this.transactionManager = transactionManager;
+        this.environment = environment;
+        this.defaultBudgetSeconds = defaultBudgetSeconds;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.lastGood = new ClockCache<>(maxEntries, maxRows, fetched -> rows(fetched.getValue()));
+        this.refresher = new ThreadPoolExecutor(1, 2, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100), runnable -> {
+            Thread thread = new Thread(runnable, "read-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs {@code query} within the budget of {@code endpoint} and returns its result, or the last good result for the
+     * same endpoint and arguments if the database doesn't answer.
+     */
+    public <T> T read(String endpoint, List<?> arguments, Supplier<T> query) {
+        return serve(fetch(endpoint, arguments, query));
+    }
+
+    /**
+     * Like {@link #read}, without touching the response, so the result can be shared between callers that each
+     * {@link #serve} it.
+     */
+    public <T> Fetched<T> fetch(String endpoint, List<?> arguments, Supplier<T> query) {
+        List<Object> key = Arrays.asList(TenantContext.get(), endpoint, arguments);
+        CircuitBreaker breaker = breaker();
+        if (!breaker.tryAcquire()) {
+            return fallback(key, endpoint, query, null);
+        }
+        try {
+            return load(key, endpoint, query, breaker);
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Read {} failed: {}", endpoint, e.getMessage());
+            return fallback(key, endpoint, query, e);
+        }
+    }
+
+    /**
+     * Unwraps a fetched result, marking the current response when it is stale.
+     */
+    public <T> T serve(Fetched<T> fetched) {
+        if (fetched.isStale()) {
+            servedStale.set(Boolean.TRUE);
+        } else {
+            servedStale.remove();
+        }
+        if (fetched.isStale() && RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getResponse() != null) {
+            HttpServletResponse response = attributes.getResponse();
+            response.setHeader(STALE_HEADER, "true");
+            response.setHeader(HttpHeaders.AGE, String.valueOf((System.currentTimeMillis() - fetched.getFetchedAt()) / 1000));
+        }
+        return fetched.getValue();
+    }
+
+    /**
+     * Whether the last result {@link #serve served} on this thread was a stale one, so callers that keep results,
+     * like {@code @Cacheable} methods, can leave it out.
+     */
+    public boolean isServedStale() {
+        return Boolean.TRUE.equals(servedStale.get());
+    }
+
+    /**
+     * Refuses a write with 503 while the breaker of the current hospital is open.
+     */
+    public void ensureAvailable() {
+        if (breaker().isOpen()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The database is unavailable.");
+        }
+    }
+
+    private <T> Fetched<T> load(List<Object> key, String endpoint, Supplier<T> query, CircuitBreaker breaker) {
+        T value;
+        try {
+            value = transaction(endpoint).execute(status -> query.get());
+        } catch (DataAccessException | TransactionException e) {
+            breaker.failure();
+            throw e;
+        } catch (RuntimeException | Error e) {
+            // Not found, bad input...: the database answered
+            breaker.success();
+            throw e;
+        }
+        breaker.success();
+        Fetched<T> fetched = new Fetched<>(value, System.currentTimeMillis(), false);
+        lastGood.put(key, fetched);
+        return fetched;
+    }
+
+    private static int rows(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (value instanceof BatchResultDTO<?> batch) {
+            return batch.getFound().size();
+        }
+        if (value instanceof ChangesDTO<?> changes) {
+            return changes.getItems().size();
+        }
+        return 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Fetched<T> fallback(List<Object> key, String endpoint, Supplier<T> query, RuntimeException cause) {
+        Fetched<T> last = (Fetched<T>) lastGood.get(key);
+        if (last == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The database is unavailable.", cause);
+        }
+        refreshInBackground(key, endpoint, query);
+        return new Fetched<>(last.getValue(), last.getFetchedAt(), true);
+    }
+
+    private void refreshInBackground(List<Object> key, String endpoint, Supplier<?> query) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        String tenant = TenantContext.get();
+        try {
+            refresher.execute(() -> {
+                TenantContext.set(tenant);
+                try {
+                    CircuitBreaker breaker = breaker();
+                    if (breaker.tryAcquire()) {
+                        load(key, endpoint, query, breaker);
+                    }
+                } catch (RuntimeException e) {
+                    log.debug("Background refresh of {} failed: {}", endpoint, e.getMessage());
+                } finally {
+                    TenantContext.clear();
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private CircuitBreaker breaker() {
+        String tenant = TenantContext.get();
+        return breakers.computeIfAbsent(tenant == null ? TenantContext.DEFAULT_TENANT : tenant,
+                name -> new CircuitBreaker(failureThreshold, openMillis));
+    }
+
+    private TransactionTemplate transaction(String endpoint) {
+        return transactions.computeIfAbsent(endpoint, name -> {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.setTimeout(environment.getProperty("resilience.read.budget-seconds." + name, Integer.class, defaultBudgetSeconds));
+            return transaction;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * A read result and when it came from the database.
+     */
+    public static final class Fetched<T> {
+        private final T value;
+        private final long fetchedAt;
+        private final boolean stale;
+
+        private Fetched(T value, long fetchedAt, boolean stale) {
+            this.value = value;
+            this.fetchedAt = fetchedAt;
+            this.stale = stale;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getFetchedAt() {
+            return fetchedAt;
+        }
+
+        public boolean isStale() {
+            return stale;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.ironhack.lab406.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.repository.DoctorRepository;
+import org.ironhack.lab406.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Streams doctor and patient lists as newline-delimited JSON, one object per line, instead of loading the whole
+ * list first. Rows are read in keyset pages of {@code streaming.page-rows}, in id order, each in a short read-only
+ * transaction of its own, and written to the client after the transaction ends: a slow client blocks the write and
+ * with it the next page, but holds no pooled connection meanwhile. Memory stays bounded by one page. A row changed
+ * during the stream shows up as it was when its page was read.
+ * <p>
+ * A running stream still occupies one of the {@code streaming.threads} workers until its last row is written;
+ * further streams wait in the executor queue and are refused with 503 once it is full.
+ * <p>
+ * Unlike the list endpoints these reads skip the last known good fallback of {@link ReadResilienceService}: a
+ * result that is never held in memory can't be kept.
+ */
+@Service
+public class StreamingReadService {
+    private static final StreamingResponseBody EMPTY = output -> {
+    };
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DepartmentDictionary departmentDictionary;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${streaming.flush-rows:100}")
+    private int flushRows;
+
+    @Value("${streaming.page-rows:500}")
+    private int pageRows;
+
+    @Value("${streaming.timeout-ms:60000}")
+    private long timeoutMillis;
+
+    private TransactionTemplate transactionTemplate;
+    private ObjectWriter writer;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setTimeout((int) TimeUnit.MILLISECONDS.toSeconds(timeoutMillis + 999));
+        writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public StreamingResponseBody streamDoctors(Optional<EmployeeStatus> status, Optional<String> department) {
+        if (!isKnown(department.orElse(null))) {
+            return EMPTY;
+        }
+        return stream((afterId, page) -> doctorRepository.findPageByStatusAndDepartment(status.orElse(null), department.orElse(null), afterId, page),
+                Doctor::getEmployeeId);
+    }
+
+    public StreamingResponseBody streamPatients() {
+        return stream(patientRepository::findPageAfter, Patient::getPatientId);
+    }
+
+    public StreamingResponseBody streamPatientsByDateOfBirthBetween(Date start, Date end) {
+        return stream((afterId, page) -> patientRepository.findPageByDateOfBirthBetween(start, end, afterId, page), Patient::getPatientId);
+    }
+
+    public StreamingResponseBody streamPatientsByDoctorDepartment(String department) {
+        if (!isKnown(department)) {
+            return EMPTY;
+        }
+        return stream((afterId, page) -> patientRepository.findPageByAdmittedByDepartment(department, afterId, page), Patient::getPatientId);
+    }
+
+    public StreamingResponseBody streamPatientsOfOffDoctors() {
+        return stream((afterId, page) -> patientRepository.findPageByAdmittedByStatus(EmployeeStatus.OFF, afterId, page), Patient::getPatientId);
+    }
+
+    // A department that was never registered has no doctors, and querying it would register it
+    private boolean isKnown(String department) {
+        return department == null || departmentDictionary.find(department).isPresent();
+    }
+
+    private <T> StreamingResponseBody stream(BiFunction<Integer, Pageable, List<T>> pageAfter, ToIntFunction<T> idOf) {
+        return output -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                // The container closes the response stream once the body is written
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Lines are separated by the newline alone, not the default space between root values
+                generator.setRootValueSeparator(null);
+                Pageable page = PageRequest.ofSize(pageRows);
+                int afterId = Integer.MIN_VALUE;
+                int pending = 0;
+                List<T> rows;
+                do {
+                    int from = afterId;
+                    // The transaction, and with it the connection, ends before the page is written
+                    rows = transactionTemplate.execute(status -> pageAfter.apply(from, page));
+                    for (T row : rows) {
+                        writer.writeValue(generator, row);
+                        generator.writeRaw('\n');
+                        if (++pending == flushRows) {
+                            generator.flush();
+                            pending = 0;
+                        }
+                    }
+                    if (!rows.isEmpty()) {
+                        afterId = idOf.applyAsInt(rows.get(rows.size() - 1));
+                    }
+                } while (rows.size() == pageRows);
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package org.ironhack.lab406.service;
+
+import jakarta.annotation.PreDestroy;
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.config.TenantProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs the same query against every hospital database in parallel and collects the results per hospital.
+ */
+@Service
+@ConditionalOnProperty(prefix = "tenants", name = "enabled", havingValue = "true")
+public class TenantScatterGatherService {
+    private final List<String> tenants = new ArrayList<>();
+    private final ExecutorService executor;
+
+    public TenantScatterGatherService(TenantProperties tenantProperties) {
+        tenants.add(TenantContext.DEFAULT_TENANT);
+        tenants.addAll(tenantProperties.getDatasources().keySet());
+        executor = Executors.newFixedThreadPool(tenants.size());
+    }
+
+    public <T> Map<String, T> forEachTenant(Supplier<T> query) {
+        Map<String, Future<T>> futures = new LinkedHashMap<>();
+        for (String tenant : tenants) {
+            futures.put(tenant, executor.submit(() -> {
+                TenantContext.set(TenantContext.DEFAULT_TENANT.equals(tenant) ? null : tenant);
+                try {
+                    return query.get();
+                } finally {
+                    TenantContext.clear();
+                }
+            }));
+        }
+
+        Map<String, T> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<T>> future : futures.entrySet()) {
+            try {
+                results.put(future.getKey(), future.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while querying hospitals.");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
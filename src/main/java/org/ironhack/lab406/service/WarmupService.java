@@ -0,0 +1,223 @@
+package org.ironhack.lab406.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.zaxxer.hikari.HikariDataSource;
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.config.TenantProperties;
+import org.ironhack.lab406.controller.dto.ChangesDTO;
+import org.ironhack.lab406.controller.dto.DoctorSearchDTO;
+import org.ironhack.lab406.controller.dto.PatientSearchDTO;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.repository.DoctorRepository;
+import org.ironhack.lab406.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * Warms a new node up before it reports ready: fills every connection pool, runs each doctor and patient query
+ * shape through the services (Hibernate query plans, converters, the department dictionary, the by-id caches) and
+ * serializes sample payloads with every Jackson converter until the JIT has compiled the hot paths. Spring Boot only
+ * switches readiness to {@code ACCEPTING_TRAFFIC} once the application runners are done, so the node takes traffic
+ * when warm-up finishes or {@code warmup.budget-ms} runs out, whichever comes first. The budget is checked between
+ * iterations, so a slow statement can overrun it by at most its own duration.
+ * Runs after the other application runners, so the schema and bootstrap data are in place.
+ * <p>
+ * Query shapes run with arguments that match few rows; list endpoints without filters are left out, since on a big
+ * table warming them would cost more than the cold call it saves.
+ */
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupService implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+    private static final int SAMPLE_SIZE = 20;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private List<AbstractJackson2HttpMessageConverter> converters;
+
+    @Autowired
+    private ObjectProvider<TenantProperties> tenantProperties;
+
+    @Value("${warmup.budget-ms:30000}")
+    private long budgetMillis;
+
+    @Value("${warmup.query-iterations:10}")
+    private int queryIterations;
+
+    @Value("${warmup.serialization-iterations:200}")
+    private int serializationIterations;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        long deadline = start + budgetMillis;
+        StringJoiner report = new StringJoiner(", ");
+        boolean complete = true;
+
+        // A region's first poll clears it; taking that baseline now keeps the entries primed below
+        cacheInvalidationService.poll();
+
+        List<String> tenants = new ArrayList<>();
+        tenants.add(null);
+        tenantProperties.ifAvailable(properties -> tenants.addAll(properties.getDatasources().keySet()));
+        for (String tenant : tenants) {
+            TenantContext.set(tenant);
+            try {
+                complete &= warmUp(tenant == null ? TenantContext.DEFAULT_TENANT : tenant, deadline, report);
+            } catch (RuntimeException e) {
+                complete = false;
+                report.add("failed: " + e.getMessage());
+            } finally {
+                TenantContext.clear();
+            }
+        }
+
+        log.info("Warm-up {} in {} ms (budget {} ms): {}", complete ? "finished" : "incomplete",
+                System.currentTimeMillis() - start, budgetMillis, report);
+    }
+
+    private boolean warmUp(String tenant, long deadline, StringJoiner report) {
+        long step = System.currentTimeMillis();
+        int connections = fillPool();
+        report.add(tenant + " pool " + connections + " connections in " + (System.currentTimeMillis() - step) + " ms");
+
+        step = System.currentTimeMillis();
+        List<Object> samples = new ArrayList<>();
+        int iterations = 0;
+        while (iterations < queryIterations && System.currentTimeMillis() < deadline) {
+            samples = runQueryShapes();
+            iterations++;
+        }
+        report.add(tenant + " queries " + iterations + "x in " + (System.currentTimeMillis() - step) + " ms");
+        if (iterations < queryIterations) {
+            return false;
+        }
+
+        step = System.currentTimeMillis();
+        iterations = 0;
+        while (iterations < serializationIterations && System.currentTimeMillis() < deadline) {
+            serialize(samples);
+            iterations++;
+        }
+        report.add(tenant + " serialization " + iterations + "x in " + (System.currentTimeMillis() - step) + " ms");
+        return iterations == serializationIterations;
+    }
+
+    // Holding every connection at once makes the pool open all of them now rather than under the first requests
+    private int fillPool() {
+        int size;
+        try {
+            size = dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize() : 1;
+        } catch (SQLException e) {
+            size = 1;
+        }
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < size; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.debug("Pool warm-up stopped after {} connections: {}", connections.size(), e.getMessage());
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Could not return a warm-up connection: {}", e.getMessage());
+                }
+            }
+        }
+        return connections.size();
+    }
+
+    private List<Object> runQueryShapes() {
+        List<Object> samples = new ArrayList<>();
+        Date today = new Date();
+
+        ChangesDTO<Doctor> doctorChanges = doctorService.getChanges(Optional.empty());
+        List<Doctor> doctors = doctorChanges.getItems().subList(0, Math.min(SAMPLE_SIZE, doctorChanges.getItems().size()));
+        List<Integer> doctorIds = doctors.stream().map(Doctor::getEmployeeId).toList();
+        String department = doctors.isEmpty() ? "cardiology" : doctors.get(0).getDepartment();
+        samples.add(doctors);
+
+        doctorService.getDoctors(Optional.of(EmployeeStatus.ON), Optional.of(department));
+        doctorService.getDoctors(Optional.empty(), Optional.of(department));
+        doctorService.search(new DoctorSearchDTO(List.of(EmployeeStatus.ON, EmployeeStatus.ON_CALL), List.of(department), "~"));
+        doctorService.searchFields(String.join(",", DoctorRepository.FIELDS), new DoctorSearchDTO(List.of(EmployeeStatus.OFF), List.of(department), "~"));
+        samples.add(doctorService.getDoctorsByIds(doctorIds.isEmpty() ? List.of(0) : doctorIds));
+        doctorService.getDoctorFieldsByIds(doctorIds.isEmpty() ? List.of(0) : doctorIds, String.join(",", DoctorRepository.FIELDS));
+        for (Integer id : doctorIds) {
+            try {
+                doctorService.getDoctorById(id);
+            } catch (ResponseStatusException e) {
+                // deleted since the changes page was read
+            }
+        }
+
+        ChangesDTO<Patient> patientChanges = patientService.getChanges(Optional.empty());
+        List<Patient> patients = patientChanges.getItems().subList(0, Math.min(SAMPLE_SIZE, patientChanges.getItems().size()));
+        List<Integer> patientIds = patients.stream().map(Patient::getPatientId).toList();
+        samples.add(patients);
+
+        patientService.getByDateOfBirthBetween(today, today);
+        patientService.search(new PatientSearchDTO(today, today, department, EmployeeStatus.OFF, null));
+        patientService.search(new PatientSearchDTO(today, today, null, null, doctorIds.isEmpty() ? 0 : doctorIds.get(0)));
+        samples.add(patientService.searchFields(String.join(",", PatientRepository.FIELDS), new PatientSearchDTO(today, today, department, null, null)));
+        samples.add(patientService.getPatientsByIds(patientIds.isEmpty() ? List.of(0) : patientIds));
+        patientService.getPatientFieldsByIds(patientIds.isEmpty() ? List.of(0) : patientIds, String.join(",", PatientRepository.FIELDS));
+        for (Integer id : patientIds) {
+            try {
+                patientService.getPatientById(id);
+            } catch (ResponseStatusException e) {
+                // deleted since the changes page was read
+            }
+        }
+        return samples;
+    }
+
+    private void serialize(List<Object> samples) {
+        for (AbstractJackson2HttpMessageConverter converter : converters) {
+            for (Object sample : samples) {
+                try {
+                    converter.getObjectMapper().writeValueAsBytes(sample);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("Could not serialize a warm-up sample", e);
+                }
+            }
+        }
+    }
+}
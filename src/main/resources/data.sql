@@ -1,14 +0,0 @@
-INSERT INTO doctors (`employee_id`, `department`, `name`, `status`) VALUES ('356712', 'cardiology', 'Alonso Flores', 'ON_CALL');
-INSERT INTO doctors (`employee_id`, `department`, `name`, `status`) VALUES ('564134', 'immunology', 'Sam Ortega', 'ON');
-INSERT INTO doctors (`employee_id`, `department`, `name`, `status`) VALUES ('761527', 'cardiology', 'German Ruiz', 'OFF');
-INSERT INTO doctors (`employee_id`, `department`, `name`, `status`) VALUES ('166552', 'pulmonary', 'Maria Lin', 'ON');
-INSERT INTO doctors (`employee_id`, `department`, `name`, `status`) VALUES ('156545', 'orthopaedic', 'Paolo Rodriguez', 'ON_CALL');
-INSERT INTO doctors (`employee_id`, `department`, `name`, `status`) VALUES ('172456', 'psychiatric', 'John Paul Armes', 'OFF');
-
-
-INSERT INTO patients (`name`, `date_of_birth`, `admitted_by`) VALUES ('Jaime Jordan', '1984-03-02', '564134');
-INSERT INTO patients (`name`, `date_of_birth`, `admitted_by`) VALUES ('Marian Garcia', '1972-01-12', '564134');
-INSERT INTO patients (`name`, `date_of_birth`, `admitted_by`) VALUES ('Julia Dusterdieck', '1954-06-11', '356712');
-INSERT INTO patients (`name`, `date_of_birth`, `admitted_by`) VALUES ('Steve McDuck', '1931-11-10', '761527');
-INSERT INTO patients (`name`, `date_of_birth`, `admitted_by`) VALUES ('Marian Garcia', '1999-02-15', '172456');
-
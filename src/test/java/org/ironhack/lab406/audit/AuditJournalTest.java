@@ -0,0 +1,119 @@
+package org.ironhack.lab406.audit;
+
+import org.ironhack.lab406.enums.AuditAction;
+import org.ironhack.lab406.enums.FsyncPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditJournalTest {
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_recordsReadBackInOrder() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, SEGMENT_BYTES, 10, FsyncPolicy.EVERY_WRITE)) {
+            journal.append(new AuditRecord(1000L, AuditAction.DOCTOR_STATUS_CHANGED, 356712, "default", "ON -> OFF"));
+            journal.append(new AuditRecord(2000L, AuditAction.PATIENT_ADMITTED, 7, "hospital-b", "admittedBy=356712"));
+        }
+
+        List<AuditRecord> records = readAll();
+        assertEquals(2, records.size());
+        assertEquals(AuditAction.DOCTOR_STATUS_CHANGED, records.get(0).getAction());
+        assertEquals(356712, records.get(0).getEntityId());
+        assertEquals("ON -> OFF", records.get(0).getDetail());
+        assertEquals("hospital-b", records.get(1).getTenant());
+        assertEquals(2000L, records.get(1).getTimestamp());
+    }
+
+    @Test
+    void append_segmentFull_rotatesAndDropsOldestSegments() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, SEGMENT_BYTES, 2, FsyncPolicy.NONE)) {
+            for (int i = 0; i < 500; i++) {
+                journal.append(new AuditRecord(i, AuditAction.PATIENT_UPDATED, i, "default", "name"));
+            }
+        }
+
+        assertEquals(2, AuditJournalReader.segments(directory).size());
+        List<AuditRecord> recent = AuditJournalReader.recent(directory, 3, record -> true);
+        assertEquals(List.of(499, 498, 497), recent.stream().map(AuditRecord::getEntityId).toList());
+    }
+
+    @Test
+    void recent_manyCheckpointsAcrossSegments_newestMatchesFirst() throws IOException {
+        List<AuditRecord> live;
+        try (AuditJournal journal = new AuditJournal(directory, 16 * SEGMENT_BYTES, 10, FsyncPolicy.NONE)) {
+            for (int i = 0; i < 3000; i++) {
+                journal.append(new AuditRecord(i, AuditAction.PATIENT_UPDATED, i, "default", "name"));
+            }
+            live = journal.recent(5, record -> record.getEntityId() % 100 == 0);
+        }
+
+        assertTrue(AuditJournalReader.segments(directory).size() > 1);
+        assertEquals(List.of(2900, 2800, 2700, 2600, 2500), live.stream().map(AuditRecord::getEntityId).toList());
+        List<AuditRecord> offline = AuditJournalReader.recent(directory, 5, record -> record.getEntityId() % 100 == 0);
+        assertEquals(List.of(2900, 2800, 2700, 2600, 2500), offline.stream().map(AuditRecord::getEntityId).toList());
+        assertEquals(3000, readAll().size());
+    }
+
+    @Test
+    void recent_reopenedJournal_includesRecordsBeforeAndAfter() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, 16 * SEGMENT_BYTES, 10, FsyncPolicy.NONE)) {
+            for (int i = 0; i < 600; i++) {
+                journal.append(new AuditRecord(i, AuditAction.PATIENT_UPDATED, i, "default", "name"));
+            }
+        }
+
+        try (AuditJournal journal = new AuditJournal(directory, 16 * SEGMENT_BYTES, 10, FsyncPolicy.NONE)) {
+            journal.append(new AuditRecord(600, AuditAction.PATIENT_UPDATED, 600, "default", "name"));
+            assertEquals(List.of(600, 599, 300), journal.recent(3, record -> record.getEntityId() >= 599 || record.getEntityId() == 300)
+                    .stream().map(AuditRecord::getEntityId).toList());
+        }
+    }
+
+    @Test
+    void open_afterTornRecord_appendsAfterLastIntactRecord() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, SEGMENT_BYTES, 10, FsyncPolicy.EVERY_WRITE)) {
+            journal.append(new AuditRecord(1L, AuditAction.DOCTOR_CREATED, 1, "default", "cardiology ON"));
+            journal.append(new AuditRecord(2L, AuditAction.DOCTOR_CREATED, 2, "default", "cardiology OFF"));
+        }
+        // Corrupt the body of the second record, as if the crash hit before its pages were written
+        Path segment = AuditJournalReader.segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int secondRecord = AuditJournal.HEADER_BYTES + AuditJournal.MIN_BODY_BYTES + "default".length() + "cardiology ON".length();
+            channel.write(ByteBuffer.wrap(new byte[]{42, 42, 42}), secondRecord + AuditJournal.HEADER_BYTES);
+        }
+
+        try (AuditJournal journal = new AuditJournal(directory, SEGMENT_BYTES, 10, FsyncPolicy.EVERY_WRITE)) {
+            journal.append(new AuditRecord(3L, AuditAction.DOCTOR_CREATED, 3, "default", "immunology ON"));
+        }
+
+        assertEquals(List.of(1, 3), readAll().stream().map(AuditRecord::getEntityId).toList());
+    }
+
+    @Test
+    void open_alreadyOpen_fails() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, SEGMENT_BYTES, 10, FsyncPolicy.NONE)) {
+            assertThrows(IllegalStateException.class, () -> new AuditJournal(journal.getDirectory(), SEGMENT_BYTES, 10, FsyncPolicy.NONE));
+        }
+    }
+
+    private List<AuditRecord> readAll() {
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.forEach(directory, records::add);
+        return records;
+    }
+}
@@ -0,0 +1,200 @@
+package org.ironhack.lab406.benchmark;
+
+import jdk.jfr.consumer.RecordingFile;
+import org.ironhack.lab406.service.FlightRecordingService;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Overhead of continuous flight recording on {@code GET /doctors/{id}} and {@code GET /doctors?department=}: the
+ * same requests run in alternating rounds with and without the {@link FlightRecordingService} recording (JDK
+ * "default" settings plus the service and repository call events over {@code jfr.call-threshold-ms}), and the
+ * median requests per second of each are logged with the median difference of the pairs of rounds. Round to round, a busy machine varies by far more than
+ * 1%, so the second case times one call through the service call advice with and without the recording instead, and
+ * scales that cost by the events recorded per request; run with {@code -Djfr.call-threshold-ms=0} for the cost of
+ * recording every call. There is no pass threshold, as a loaded machine can't promise one.
+ * Not picked up by the default test run; launch it with {@code mvn test -Dtest=FlightRecorderBenchmark}.
+ */
+@SpringBootTest
+@ActiveProfiles("memory")
+class FlightRecorderBenchmark extends HospitalFixture {
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderBenchmark.class);
+    private static final int WARMUP_ROUNDS = 6;
+    private static final int ROUNDS = Integer.getInteger("jfr.rounds", 20);
+    private static final long ROUND_MILLIS = 2_000;
+    private static final int CALLS = 1_000_000;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+
+    @Autowired
+    @Qualifier("serviceCallEventAdvisor")
+    private Advisor serviceCallEventAdvisor;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    void requests_withAndWithoutRecording_overheadLogged() throws Exception {
+        // Warms up both paths, including the event classes JFR instruments once a recording enables them
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round(i % 2 == 0);
+        }
+
+        List<Double> off = new ArrayList<>();
+        List<Double> on = new ArrayList<>();
+        List<Double> overheads = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            // Swapping which side goes first cancels out throughput that keeps drifting in one direction
+            boolean recordingFirst = i % 2 == 1;
+            double first = round(recordingFirst);
+            double second = round(!recordingFirst);
+            double without = recordingFirst ? second : first;
+            double with = recordingFirst ? first : second;
+            off.add(without);
+            on.add(with);
+            overheads.add((without - with) / without * 100);
+        }
+        log.info("GET /doctors rounds={} without recording {} req/s, with recording {} req/s, overhead median {}% (rounds {}% to {}%)", ROUNDS,
+                String.format("%.0f", median(off)), String.format("%.0f", median(on)), String.format("%.2f", median(overheads)),
+                String.format("%.2f", overheads.stream().mapToDouble(Double::doubleValue).min().orElse(0)),
+                String.format("%.2f", overheads.stream().mapToDouble(Double::doubleValue).max().orElse(0)));
+    }
+
+    @Test
+    void advisedCall_withAndWithoutRecording_costPerEventLogged() throws Exception {
+        @SuppressWarnings("unchecked")
+        Function<String, List<Integer>> call = (Function<String, List<Integer>>) proxy(department -> List.of(356712, 761527));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("GET", "/doctors")));
+        try {
+            nanosPerCall(call, false);
+            nanosPerCall(call, true);
+            double without = nanosPerCall(call, false);
+            double with = nanosPerCall(call, true);
+            // What one request would pay at the throughput measured without a recording, once warmed up
+            double eventsPerRequest = eventsPerRequest();
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                round(false);
+            }
+            double requestNanos = 1e9 / round(false);
+            log.info("Intercepted call without recording {} ns, with recording {} ns; {} events per GET /doctors request of {} us: {}% of a request",
+                    String.format("%.0f", without), String.format("%.0f", with), String.format("%.1f", eventsPerRequest),
+                    String.format("%.0f", requestNanos / 1_000), String.format("%.2f", eventsPerRequest * (with - without) / requestNanos * 100));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    // Requests per second of one round
+    private double round(boolean recording) throws Exception {
+        if (recording) {
+            flightRecordingService.start(Duration.ofMinutes(5));
+        }
+        try {
+            long requests = 0;
+            long start = System.nanoTime();
+            long end = start + ROUND_MILLIS * 1_000_000;
+            while (System.nanoTime() < end) {
+                mockMvc.perform(get("/doctors/{id}", 356712)).andExpect(status().isOk());
+                mockMvc.perform(get("/doctors").param("department", "cardiology")).andExpect(status().isOk());
+                requests += 2;
+            }
+            return requests / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            if (recording) {
+                flightRecordingService.stop();
+            }
+        }
+    }
+
+    private double nanosPerCall(Function<String, List<Integer>> call, boolean recording) {
+        if (recording) {
+            flightRecordingService.start(Duration.ofMinutes(5));
+        }
+        try {
+            long start = System.nanoTime();
+            int rows = 0;
+            for (int i = 0; i < CALLS; i++) {
+                rows += call.apply("cardiology").size();
+            }
+            assertEquals(2L * CALLS, rows);
+            return (System.nanoTime() - start) / (double) CALLS;
+        } finally {
+            if (recording) {
+                flightRecordingService.stop();
+            }
+        }
+    }
+
+    // The service and repository call events recorded per request of a round
+    private double eventsPerRequest() throws Exception {
+        flightRecordingService.start(Duration.ofMinutes(5));
+        Path file = Files.createTempFile("lab406-benchmark", ".jfr");
+        try {
+            int requests = 100;
+            for (int i = 0; i < requests / 2; i++) {
+                mockMvc.perform(get("/doctors/{id}", 356712)).andExpect(status().isOk());
+                mockMvc.perform(get("/doctors").param("department", "cardiology")).andExpect(status().isOk());
+            }
+            try (OutputStream output = Files.newOutputStream(file)) {
+                flightRecordingService.dump().writeTo(output);
+            }
+            long events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().startsWith("org.ironhack.lab406."))
+                    .count();
+            return events / (double) requests;
+        } finally {
+            flightRecordingService.stop();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // The advice of the service call events around a plain function
+    private Object proxy(Function<String, List<Integer>> target) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addInterface(Function.class);
+        proxyFactory.addAdvice(serviceCallEventAdvisor.getAdvice());
+        return proxyFactory.getProxy();
+    }
+
+    private static double median(List<Double> values) {
+        List<Double> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 0 ? (sorted.get(middle - 1) + sorted.get(middle)) / 2 : sorted.get(middle);
+    }
+}
@@ -0,0 +1,10 @@
+package org.ironhack.lab406.benchmark;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the {@link StorageBackendBenchmark} workload against the embedded storage profile.
+ */
+@ActiveProfiles("memory")
+class MemoryStorageBenchmark extends StorageBackendBenchmark {
+}
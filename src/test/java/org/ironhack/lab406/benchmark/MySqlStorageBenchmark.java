@@ -0,0 +1,7 @@
+package org.ironhack.lab406.benchmark;
+
+/**
+ * Runs the {@link StorageBackendBenchmark} workload against MySQL.
+ */
+class MySqlStorageBenchmark extends StorageBackendBenchmark {
+}
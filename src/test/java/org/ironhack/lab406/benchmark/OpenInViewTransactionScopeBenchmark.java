@@ -0,0 +1,10 @@
+package org.ironhack.lab406.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the {@link TransactionScopeBenchmark} with open-session-in-view, Spring Boot's default before it was turned off.
+ */
+@TestPropertySource(properties = "spring.jpa.open-in-view=true")
+class OpenInViewTransactionScopeBenchmark extends TransactionScopeBenchmark {
+}
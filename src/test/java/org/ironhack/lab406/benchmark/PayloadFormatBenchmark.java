@@ -0,0 +1,89 @@
+package org.ironhack.lab406.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares JSON, CBOR and Smile for patient list payloads: bytes on the wire, serialization time and allocation.
+ * Not picked up by the default test run; launch it with {@code mvn test -Dtest=PayloadFormatBenchmark}.
+ */
+class PayloadFormatBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(PayloadFormatBenchmark.class);
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private final Map<String, ObjectMapper> mappers = Map.of(
+            "json", new ObjectMapper(),
+            "cbor", new CBORMapper(),
+            "smile", new SmileMapper()
+    );
+
+    @Test
+    void patientList_1k() throws Exception {
+        compare(patients(1_000));
+    }
+
+    @Test
+    void patientList_100k() throws Exception {
+        compare(patients(100_000));
+    }
+
+    private void compare(List<Patient> patients) throws Exception {
+        long jsonBytes = measure("json", patients);
+        assertTrue(measure("cbor", patients) < jsonBytes);
+        assertTrue(measure("smile", patients) < jsonBytes);
+    }
+
+    private long measure(String format, List<Patient> patients) throws Exception {
+        ObjectMapper mapper = mappers.get(format);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        int size = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            size = mapper.writeValueAsBytes(patients).length;
+        }
+
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            mapper.writeValueAsBytes(patients);
+        }
+        long elapsed = (System.nanoTime() - start) / MEASURED_ROUNDS;
+        long allocated = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / MEASURED_ROUNDS;
+
+        log.info("{} rows={} bytes={} time={} ms allocated={} bytes",
+                format, patients.size(), size, String.format("%.3f", elapsed / 1_000_000.0), allocated);
+        return size;
+    }
+
+    private static List<Patient> patients(int rows) {
+        EmployeeStatus[] statuses = EmployeeStatus.values();
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            doctors.add(new Doctor(100_000 + i, "department-" + (i % 5), "Doctor " + i, statuses[i % statuses.length]));
+        }
+
+        List<Patient> patients = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Patient patient = new Patient("Patient " + i, new Date(-1_000_000_000_000L + i * 86_400_000L), doctors.get(i % doctors.size()));
+            patient.setPatientId(i + 1);
+            patients.add(patient);
+        }
+        return patients;
+    }
+}
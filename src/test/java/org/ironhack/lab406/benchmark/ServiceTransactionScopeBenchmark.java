@@ -0,0 +1,8 @@
+package org.ironhack.lab406.benchmark;
+
+/**
+ * Runs the {@link TransactionScopeBenchmark} with the application's own settings: no open-session-in-view, so a
+ * connection is only held for the service's transaction.
+ */
+class ServiceTransactionScopeBenchmark extends TransactionScopeBenchmark {
+}
@@ -0,0 +1,91 @@
+package org.ironhack.lab406.benchmark;
+
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.repository.DoctorRepository;
+import org.ironhack.lab406.repository.PatientRepository;
+import org.ironhack.lab406.service.DepartmentDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the same repository workload (single-row inserts, lookups by id, department and date of birth) against one
+ * storage backend and logs the operations per second of each step. {@link MySqlStorageBenchmark} runs it against the
+ * MySQL of the test properties and {@link MemoryStorageBenchmark} against the embedded profile; launch both with
+ * {@code mvn test -Dtest='*StorageBenchmark'} to compare them. Not picked up by the default test run.
+ */
+@SpringBootTest
+abstract class StorageBackendBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(StorageBackendBenchmark.class);
+    private static final int DOCTORS = 500;
+    private static final int PATIENTS = 5_000;
+    private static final int LOOKUPS = 5_000;
+    private static final String[] DEPARTMENTS = {"cardiology", "immunology", "pulmonary", "orthopaedic", "psychiatric"};
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DepartmentDictionary departmentDictionary;
+
+    @Autowired
+    private Environment environment;
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void repositoryWorkload() {
+        EmployeeStatus[] statuses = EmployeeStatus.values();
+        List<Doctor> doctors = new ArrayList<>();
+        Arrays.stream(DEPARTMENTS).forEach(departmentDictionary::register);
+        measure("insert doctor", DOCTORS, i -> doctors.add(doctorRepository.save(
+                new Doctor(100_000 + i, DEPARTMENTS[i % DEPARTMENTS.length], "Doctor " + i, statuses[i % statuses.length]))));
+        List<Integer> patientIds = new ArrayList<>();
+        measure("insert patient", PATIENTS, i -> patientIds.add(patientRepository.save(
+                new Patient("Patient " + i, Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(i % 20_000)), doctors.get(i % doctors.size()))).getPatientId()));
+
+        measure("find doctor by id", LOOKUPS, i -> doctorRepository.findById(100_000 + i % DOCTORS).orElseThrow());
+        measure("find patient by id", LOOKUPS, i -> patientRepository.findById(patientIds.get(i % patientIds.size())).orElseThrow());
+        measure("find doctors by department", LOOKUPS / 10, i -> doctorRepository.findByDepartment(DEPARTMENTS[i % DEPARTMENTS.length]));
+        measure("find patients by date of birth", LOOKUPS / 10, i -> patientRepository.findByDateOfBirthBetween(
+                Date.valueOf("1960-01-01"), Date.valueOf("1960-12-31")));
+
+        assertEquals(PATIENTS, patientRepository.count());
+    }
+
+    private void measure(String operation, int count, IntConsumer step) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            step.accept(i);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("{} {}: {} ops in {} s, {} ops/s", backend(), operation, count,
+                String.format("%.3f", seconds), String.format("%.1f", count / seconds));
+    }
+
+    private String backend() {
+        return environment.matchesProfiles("memory") ? "embedded" : "mysql";
+    }
+}
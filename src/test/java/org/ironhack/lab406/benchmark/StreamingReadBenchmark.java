@@ -0,0 +1,154 @@
+package org.ironhack.lab406.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.repository.DoctorRepository;
+import org.ironhack.lab406.repository.PatientRepository;
+import org.ironhack.lab406.service.DepartmentDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Same patient list through the blocking {@code /patients} and the streaming {@code /reactive/patients} endpoint,
+ * under {@code -Dstreaming.clients} concurrent clients (64 by default) on a real server. Checks that both return
+ * every patient and logs throughput, latency percentiles and the streams refused with 503 once the
+ * {@code streaming.queue-size} queue is full side by side; there is no threshold, as the numbers depend on the machine and
+ * the database. Not picked up by the default test run; launch it with {@code mvn test -Dtest=StreamingReadBenchmark}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("memory")
+class StreamingReadBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(StreamingReadBenchmark.class);
+    private static final int CLIENTS = Integer.getInteger("streaming.clients", 64);
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final int PATIENTS = 2_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private DepartmentDictionary departmentDictionary;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        departmentDictionary.register("cardiology");
+        Doctor doctor = doctorRepository.save(new Doctor(356712, "cardiology", "Alonso Flores", EmployeeStatus.ON));
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < PATIENTS; i++) {
+            patients.add(new Patient("Patient " + i, Date.valueOf("1980-01-01"), doctor));
+        }
+        patientRepository.saveAll(patients);
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void findAll_blockingAndStreaming_samePatientsUnderConcurrency() throws Exception {
+        // Warms both paths up, so neither pays for the first request's class loading
+        run("/patients", this::arraySize, 1);
+        run("/reactive/patients", this::lineCount, 1);
+
+        run("/patients", this::arraySize, CLIENTS);
+        run("/reactive/patients", this::lineCount, CLIENTS);
+    }
+
+    private void run(String path, ToIntFunction<String> countRows, int clients) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger refused = new AtomicInteger();
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<Long> latencies = new ArrayList<>();
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        long sent = System.nanoTime();
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        // A refused stream is counted apart, so its quick 503 doesn't flatter the percentiles
+                        if (response.statusCode() == 503) {
+                            refused.incrementAndGet();
+                            continue;
+                        }
+                        latencies.add(System.nanoTime() - sent);
+                        assertEquals(200, response.statusCode());
+                        assertEquals(PATIENTS, countRows.applyAsInt(response.body()));
+                    }
+                    return latencies;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            List<Long> latencies = new ArrayList<>();
+            for (Future<List<Long>> future : futures) {
+                latencies.addAll(future.get(120, TimeUnit.SECONDS));
+            }
+            report(path, clients, latencies, refused.get(), System.nanoTime() - begin);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int arraySize(String body) {
+        try {
+            return objectMapper.readTree(body).size();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int lineCount(String body) {
+        return (int) body.lines().filter(line -> !line.isEmpty()).count();
+    }
+
+    private static void report(String path, int clients, List<Long> latencies, int refused, long elapsedNanos) {
+        latencies.sort(null);
+        log.info("{} clients={} requests={} refused={} {} req/s p50={} ms p99={} ms max={} ms", path, clients, latencies.size(), refused,
+                String.format("%.1f", latencies.size() / (elapsedNanos / 1e9)), String.format("%.2f", percentile(latencies, 0.50)),
+                String.format("%.2f", percentile(latencies, 0.99)), String.format("%.2f", latencies.get(latencies.size() - 1) / 1e6));
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1) / 1e6;
+    }
+}
@@ -0,0 +1,141 @@
+package org.ironhack.lab406.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Connection scope of {@code GET /patients}: more clients than the pool has connections request the full patient
+ * list for a fixed time, and the requests per second are logged with how long each request held its connection and
+ * waited to get one, as Hikari reports them. {@link OpenInViewTransactionScopeBenchmark} keeps the connection until
+ * the response is written, {@link ServiceTransactionScopeBenchmark} only for the service's read-only transaction;
+ * launch both with {@code mvn test -Dtest='*TransactionScopeBenchmark'} to compare them. Clients contending for the
+ * CPU stretch the hold times too; {@code -Dscope.clients=1} gives the uncontended hold time, which bounds what the pool
+ * can serve at {@code POOL_SIZE} divided by it. Not picked up by the default test run.
+ */
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=" + TransactionScopeBenchmark.POOL_SIZE)
+@ActiveProfiles("memory")
+abstract class TransactionScopeBenchmark extends HospitalFixture {
+    static final int POOL_SIZE = 4;
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionScopeBenchmark.class);
+    private static final int CLIENTS = Integer.getInteger("scope.clients", 16);
+    private static final int PATIENTS = 2_000;
+    private static final long WARMUP_MILLIS = 5_000;
+    private static final long RUN_MILLIS = 20_000;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${spring.jpa.open-in-view}")
+    private boolean openInView;
+
+    private MockMvc mockMvc;
+
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong usageMillis = new AtomicLong();
+    private final AtomicLong acquiredNanos = new AtomicLong();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        if (pool.getMetricsTrackerFactory() == null) {
+            pool.setMetricsTrackerFactory((poolName, poolStats) -> new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    acquiredNanos.addAndGet(elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                    checkouts.incrementAndGet();
+                    usageMillis.addAndGet(elapsedBorrowedMillis);
+                }
+            });
+        }
+    }
+
+    @Override
+    protected List<Doctor> doctorFixture() {
+        return staff(6);
+    }
+
+    @Override
+    protected List<Patient> patientFixture(List<Doctor> doctors) {
+        List<Patient> patients = new ArrayList<>(PATIENTS);
+        for (int i = 0; i < PATIENTS; i++) {
+            patients.add(new Patient("Patient " + i, parseDate("1950-01-01"), doctors.get(i % doctors.size())));
+        }
+        return patients;
+    }
+
+    @Test
+    void getPatients_moreClientsThanConnections_holdTimeAndThroughputLogged() throws Exception {
+        run(WARMUP_MILLIS);
+        checkouts.set(0);
+        usageMillis.set(0);
+        acquiredNanos.set(0);
+
+        long requests = run(RUN_MILLIS);
+
+        log.info("GET /patients open-in-view={} pool={} clients={}: {} req/s, connection held {} ms and waited for {} ms per checkout ({} checkouts per request)",
+                openInView, POOL_SIZE, CLIENTS, String.format("%.0f", requests / (RUN_MILLIS / 1e3)),
+                String.format("%.2f", usageMillis.get() / (double) checkouts.get()),
+                String.format("%.2f", acquiredNanos.get() / 1e6 / checkouts.get()),
+                String.format("%.2f", checkouts.get() / (double) requests));
+    }
+
+    // Requests completed by all clients within the time
+    private long run(long millis) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long end = System.currentTimeMillis() + millis;
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                results.add(clients.submit(() -> {
+                    long requests = 0;
+                    while (System.currentTimeMillis() < end) {
+                        mockMvc.perform(get("/patients")).andExpect(status().isOk());
+                        requests++;
+                    }
+                    return requests;
+                }));
+            }
+            long requests = 0;
+            for (Future<Long> result : results) {
+                requests += result.get();
+            }
+            return requests;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.ironhack.lab406.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.config.TenantRoutingDataSource;
+import org.ironhack.lab406.controller.dto.DoctorDTO;
+import org.ironhack.lab406.controller.dto.PatientDTO;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.repository.DoctorRepository;
+import org.ironhack.lab406.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("tenants")
+class AdminControllerTest {
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private MockMvc mockMvc;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+        mockMvc.perform(post("/doctors")
+                        .header(TenantContext.HEADER, "hospital-a")
+                        .content(objectMapper.writeValueAsString(new DoctorDTO(356712, "Alonso Flores", "cardiology", EmployeeStatus.ON_CALL)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/doctors")
+                        .header(TenantContext.HEADER, "hospital-b")
+                        .content(objectMapper.writeValueAsString(new DoctorDTO(564134, "Sam Ortega", "immunology", EmployeeStatus.ON)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String tenant : Arrays.asList(null, "hospital-a", "hospital-b")) {
+            TenantContext.set(tenant);
+            try {
+                patientRepository.deleteAll();
+                doctorRepository.deleteAll();
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    @Test
+    void getDoctors_hospitalHeader_onlyThatHospital() throws Exception {
+        MvcResult result = mockMvc.perform(get("/doctors").header(TenantContext.HEADER, "hospital-a"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("Alonso Flores"));
+        assertFalse(result.getResponse().getContentAsString().contains("Sam Ortega"));
+
+        result = mockMvc.perform(get("/doctors"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertFalse(result.getResponse().getContentAsString().contains("Alonso Flores"));
+    }
+
+    @Test
+    void dataSource_hikariSettings_everyHospitalPool() throws Exception {
+        TenantRoutingDataSource routing = dataSource.unwrap(TenantRoutingDataSource.class);
+        HikariDataSource defaultPool = (HikariDataSource) routing.getResolvedDefaultDataSource();
+        HikariDataSource hospitalPool = (HikariDataSource) routing.getResolvedDataSources().get("hospital-a");
+
+        assertEquals(2000, defaultPool.getConnectionTimeout());
+        assertEquals(2000, hospitalPool.getConnectionTimeout());
+        assertEquals(4, hospitalPool.getMaximumPoolSize());
+    }
+
+    @Test
+    void getDoctors_unknownHospital_badRequest() throws Exception {
+        mockMvc.perform(get("/doctors").header(TenantContext.HEADER, "hospital-z"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getDoctors_allHospitals_resultsPerHospital() throws Exception {
+        MvcResult result = mockMvc.perform(get("/admin/hospitals/doctors"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("\"default\":[]"));
+        assertTrue(content.indexOf("hospital-a") < content.indexOf("Alonso Flores"));
+        assertTrue(content.indexOf("hospital-b") < content.indexOf("Sam Ortega"));
+    }
+
+    @Test
+    void getSnapshot_hospitalHeader_thatHospitalsPatients() throws Exception {
+        mockMvc.perform(post("/patients")
+                        .header(TenantContext.HEADER, "hospital-a")
+                        .content(objectMapper.writeValueAsString(new PatientDTO("Jaime Jordan", "1984-03-02", 356712)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/analytics/patients/snapshot").header(TenantContext.HEADER, "hospital-a"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/analytics/patients/snapshot").header(TenantContext.HEADER, "hospital-b"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/analytics/patients/snapshot").header(TenantContext.HEADER, "hospital-a"))
+                .andExpect(jsonPath("$.patients").value(1));
+        mockMvc.perform(get("/analytics/patients/snapshot").header(TenantContext.HEADER, "hospital-b"))
+                .andExpect(jsonPath("$.patients").value(0));
+    }
+}
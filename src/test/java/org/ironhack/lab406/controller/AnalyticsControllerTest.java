@@ -0,0 +1,80 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+class AnalyticsControllerTest extends HospitalFixture {
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        mockMvc.perform(post("/analytics/patients/snapshot")).andExpect(status().isOk());
+    }
+
+    @Override
+    protected List<Doctor> doctorFixture() {
+        return staff(3);
+    }
+
+    @Override
+    protected List<Patient> patientFixture(List<Doctor> doctors) {
+        return List.of(
+                new Patient("Jaime Jordan", parseDate("1984-03-02"), doctors.get(1)),
+                new Patient("Julia Dusterdieck", parseDate("1954-06-11"), doctors.get(0)),
+                new Patient("Steve McDuck", parseDate("1931-11-10"), doctors.get(2))
+        );
+    }
+
+    @Test
+    void getAdmissionsPerDepartment_withPatients_countsPerDepartment() throws Exception {
+        MvcResult result = mockMvc.perform(get("/analytics/patients/admissions-per-department"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"cardiology\":2"));
+        assertTrue(result.getResponse().getContentAsString().contains("\"immunology\":1"));
+    }
+
+    @Test
+    void getPatientsUnderOffDoctors_withPatients_count() throws Exception {
+        MvcResult result = mockMvc.perform(get("/analytics/patients/off-doctor-count"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("1", result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void getSnapshot_withPatients_memoryPerPatient() throws Exception {
+        MvcResult result = mockMvc.perform(get("/analytics/patients/snapshot"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"patients\":3"));
+        assertTrue(result.getResponse().getContentAsString().contains("\"bytesPerPatient\":11"));
+    }
+}
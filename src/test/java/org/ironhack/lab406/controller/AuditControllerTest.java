@@ -0,0 +1,95 @@
+package org.ironhack.lab406.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ironhack.lab406.audit.AuditLog;
+import org.ironhack.lab406.controller.dto.DoctorStatusDTO;
+import org.ironhack.lab406.enums.AuditAction;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+class AuditControllerTest extends HospitalFixture {
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    void getRecent_afterStatusChange_recordedWithCommit() throws Exception {
+        mockMvc.perform(patch("/doctors/{id}/status", 356712)
+                        .content(objectMapper.writeValueAsString(new DoctorStatusDTO(EmployeeStatus.OFF)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/admin/audit").param("entityId", "356712").param("action", "DOCTOR_STATUS_CHANGED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].detail").value("ON_CALL -> OFF"))
+                .andExpect(jsonPath("$[0].tenant").value("default"));
+    }
+
+    @Test
+    void getRecent_limit_newestFirst() throws Exception {
+        for (EmployeeStatus status : List.of(EmployeeStatus.OFF, EmployeeStatus.ON_CALL)) {
+            mockMvc.perform(patch("/doctors/{id}/status", 564134)
+                            .content(objectMapper.writeValueAsString(new DoctorStatusDTO(status)))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isNoContent());
+        }
+
+        mockMvc.perform(get("/admin/audit").param("entityId", "564134").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].detail").value("OFF -> ON_CALL"));
+    }
+
+    @Test
+    void getRecent_rolledBackWrite_notRecorded() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            auditLog.record(AuditAction.DOCTOR_DEPARTMENT_CHANGED, 1, "cardiology -> immunology");
+            status.setRollbackOnly();
+        });
+
+        mockMvc.perform(get("/admin/audit").param("entityId", "1").param("action", "DOCTOR_DEPARTMENT_CHANGED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void getRecent_limitOutOfRange_badRequest() throws Exception {
+        mockMvc.perform(get("/admin/audit").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
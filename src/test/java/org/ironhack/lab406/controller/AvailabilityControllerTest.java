@@ -0,0 +1,62 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.ironhack.lab406.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "warmup.enabled=true",
+        "warmup.query-iterations=2",
+        "warmup.serialization-iterations=5",
+        "spring.cache.type=simple",
+        "bootstrap.doctors-file=classpath:bootstrap/doctors.csv",
+        "bootstrap.patients-file=classpath:bootstrap/patients.csv"
+})
+@ActiveProfiles("memory")
+class AvailabilityControllerTest extends HospitalFixture {
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Override
+    protected List<Doctor> doctorFixture() {
+        return List.of();
+    }
+
+    @Test
+    void getReadiness_afterWarmup_acceptingTrafficWithDoctorCachePrimed() throws Exception {
+        mockMvc.perform(get("/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("\"ACCEPTING_TRAFFIC\""));
+        mockMvc.perform(get("/health/liveness"))
+                .andExpect(status().isOk());
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/doctors/{id}", 356712))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Alonso Flores"));
+        assertEquals(0, SqlStatementCounter.count());
+    }
+}
@@ -0,0 +1,163 @@
+package org.ironhack.lab406.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ironhack.lab406.controller.dto.ChangesDTO;
+import org.ironhack.lab406.controller.dto.DoctorDTO;
+import org.ironhack.lab406.controller.dto.PatientDTO;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.service.ChangeSequenceService;
+import org.ironhack.lab406.service.DoctorService;
+import org.ironhack.lab406.service.PatientService;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "bootstrap.rows-per-statement=2")
+@ActiveProfiles("memory")
+class BootstrapControllerTest extends HospitalFixture {
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private ChangeSequenceService changeSequenceService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Override
+    protected List<Doctor> doctorFixture() {
+        return List.of();
+    }
+
+    @Test
+    void load_csvAndNdjson_rowsInsertedAndInvalidRowsReported() throws Exception {
+        MockMultipartFile doctors = new MockMultipartFile("doctors", "doctors.csv", "text/csv", """
+                employeeId,department,name,status
+                356712,cardiology,"Flores, Alonso",ON_CALL
+                564134,immunology,Sam Ortega,ON
+                761527,cardiology,German Ruiz,OFF
+                761527,cardiology,German Ruiz,OFF
+                """.getBytes(StandardCharsets.UTF_8));
+        MockMultipartFile patients = new MockMultipartFile("patients", "patients.ndjson", "application/x-ndjson", """
+                {"name": "Jaime Jordan", "dateOfBirth": "1984-03-02", "admittedBy": 564134}
+                {"name": "Marian Garcia", "dateOfBirth": "1972-01-12", "admittedBy": 564134}
+
+                {"name": "Julia Dusterdieck", "dateOfBirth": "1954-06-11", "admittedBy": 999999}
+                {"name": "Steve McDuck", "dateOfBirth": "1931-11-10", "admittedBy": null}
+                """.getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(multipart("/admin/bootstrap").file(doctors).file(patients))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.doctors").value(3))
+                .andExpect(jsonPath("$.patients").value(3))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.errors[0]").value("doctors line 5: Duplicate employeeId 761527"))
+                .andExpect(jsonPath("$.errors[1]").value("patients line 4: Unknown admittedBy 999999"));
+
+        assertEquals("Flores, Alonso", doctorRepository.findById(356712).get().getName());
+        assertEquals("cardiology", doctorRepository.findById(761527).get().getDepartment());
+        assertEquals(2, patientRepository.findByAdmittedByDepartment("immunology").size());
+    }
+
+    @Test
+    void load_afterSyncToken_rowsOnNextChangesPage() throws Exception {
+        doctorService.store(new DoctorDTO(356712, "Alonso Flores", "cardiology", EmployeeStatus.ON_CALL));
+        // Stamped here rather than by the background stamper, so each token below is past the write before it
+        changeSequenceService.stamp(ChangeSequenceService.DOCTORS);
+        String doctorsToken = changes("/doctors/changes", null).getToken();
+        patientService.store(new PatientDTO("Jaime Jordan", "1984-03-02", 356712));
+        changeSequenceService.stamp(ChangeSequenceService.PATIENTS);
+        String patientsToken = changes("/patients/changes", null).getToken();
+
+        MockMultipartFile doctors = new MockMultipartFile("doctors", "doctors.csv", "text/csv", """
+                employeeId,department,name,status
+                564134,immunology,Sam Ortega,ON
+                761527,cardiology,German Ruiz,OFF
+                166552,pulmonary,Maria Lin,ON
+                """.getBytes(StandardCharsets.UTF_8));
+        MockMultipartFile patients = new MockMultipartFile("patients", "patients.csv", "text/csv", """
+                name,dateOfBirth,admittedBy
+                Marian Garcia,1972-01-12,564134
+                """.getBytes(StandardCharsets.UTF_8));
+        mockMvc.perform(multipart("/admin/bootstrap").file(doctors).file(patients))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(564134, 761527, 166552),
+                changes("/doctors/changes", doctorsToken).getItems().stream().map(item -> item.get("employeeId").asInt()).toList());
+        assertEquals(List.of("Marian Garcia"),
+                changes("/patients/changes", patientsToken).getItems().stream().map(item -> item.get("name").asText()).toList());
+    }
+
+    @Test
+    void load_malformedNdjsonLine_rejectedAndRestLoaded() throws Exception {
+        MockMultipartFile doctors = new MockMultipartFile("doctors", "doctors.ndjson", "application/x-ndjson", """
+                {"employeeId": 356712, "department": "cardiology", "name": "Alonso Flores", "status": "ON_CALL"}
+                {"employeeId": 564134, "department": "immunology", "name": "Sam Ortega"
+                ["761527", "cardiology", "German Ruiz", "OFF"]
+                {"employeeId": 166552, "department": "pulmonary", "name": "Maria Lin", "status": "ON"}
+                """.getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(multipart("/admin/bootstrap").file(doctors))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.doctors").value(2))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.errors[0]").value(startsWith("doctors line 2: Malformed JSON")))
+                .andExpect(jsonPath("$.errors[1]").value("doctors line 3: Not a JSON object"));
+
+        assertEquals(List.of(166552, 356712), doctorRepository.findAll().stream().map(Doctor::getEmployeeId).sorted().toList());
+    }
+
+    @Test
+    void load_unsupportedFormat_badRequest() throws Exception {
+        MockMultipartFile doctors = new MockMultipartFile("doctors", "doctors.xlsx", "application/octet-stream", new byte[]{1, 2, 3});
+
+        mockMvc.perform(multipart("/admin/bootstrap").file(doctors))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(containsString("Unsupported file format")));
+        assertEquals(0, doctorRepository.count());
+    }
+
+    private ChangesDTO<JsonNode> changes(String path, String since) throws Exception {
+        MockHttpServletRequestBuilder request = get(path);
+        if (since != null) {
+            request.param("since", since);
+        }
+        String content = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(content, new TypeReference<>() {
+        });
+    }
+}
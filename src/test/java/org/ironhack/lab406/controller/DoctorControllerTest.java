@@ -1,15 +1,17 @@
 package org.ironhack.lab406.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.ironhack.lab406.controller.dto.ChangesDTO;
 import org.ironhack.lab406.controller.dto.DoctorDTO;
 import org.ironhack.lab406.controller.dto.DoctorDepartmentDTO;
 import org.ironhack.lab406.controller.dto.DoctorStatusDTO;
 import org.ironhack.lab406.enums.EmployeeStatus;
 import org.ironhack.lab406.model.Doctor;
 import org.ironhack.lab406.model.Patient;
-import org.ironhack.lab406.repository.DoctorRepository;
-import org.ironhack.lab406.repository.PatientRepository;
-import org.junit.jupiter.api.AfterEach;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.ironhack.lab406.support.SqlStatementCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,64 +22,37 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
-class DoctorControllerTest {
+class DoctorControllerTest extends HospitalFixture {
 
     @Autowired
     private WebApplicationContext webApplicationContext;
 
-    @Autowired
-    private DoctorRepository doctorRepository;
-
-    @Autowired
-    private PatientRepository patientRepository;
-
     private MockMvc mockMvc;
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private List<Doctor> doctors;
-    private List<Patient> patients;
 
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
 
-        doctors = doctorRepository.saveAll(
-                List.of(
-                        new Doctor(356712, "cardiology", "Alonso Flores", EmployeeStatus.ON_CALL),
-                        new Doctor(564134, "immunology", "Sam Ortega", EmployeeStatus.ON),
-                        new Doctor(761527, "cardiology", "German Ruiz", EmployeeStatus.OFF),
-                        new Doctor(166552, "pulmonary", "Maria Lin", EmployeeStatus.ON),
-                        new Doctor(156545, "orthopaedic", "Paolo Rodriguez", EmployeeStatus.ON_CALL),
-                        new Doctor(172456, "psychiatric", "John Paul Armes", EmployeeStatus.OFF)
-                )
-        );
-
-        patients = patientRepository.saveAll(
-                List.of(
-                        new Patient("Jaime Jordan", parseDate("1984-03-02"), doctors.get(1)),
-                        new Patient("Marian Garcia", parseDate("1972-01-12"), doctors.get(1)),
-                        new Patient("Julia Dusterdieck", parseDate("1954-06-11"), doctors.get(0)),
-                        new Patient("Steve McDuck", parseDate("1931-11-10"), doctors.get(2)),
-                        new Patient("Marian Garcia", parseDate("1999-02-15"), doctors.get(5))
-                )
-        );
-    }
-
-    @AfterEach
-    void tearDown() {
-        patientRepository.deleteAll();
-        doctorRepository.deleteAll();
+    @Override
+    protected List<Doctor> doctorFixture() {
+        return staff(6);
+    }
+
+    @Override
+    protected List<Patient> patientFixture(List<Doctor> doctors) {
+        return admissions(doctors);
     }
 
     @Test
@@ -101,6 +76,108 @@ class DoctorControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    void getDoctors_cborAccepted_cborPayload() throws Exception {
+        MvcResult result = mockMvc.perform(get("/doctors").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, result.getResponse().getContentType());
+        Doctor[] decoded = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(), Doctor[].class);
+        assertEquals(doctors.size(), decoded.length);
+    }
+
+    @Test
+    void getByIds_mixedIds_requestOrderAndMissing() throws Exception {
+        SqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(get("/doctors").param("ids", "166552,0,356712"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertStatementBudget(1);
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.indexOf("Maria Lin") < content.indexOf("Alonso Flores"));
+        assertTrue(content.contains("\"missing\":[0]"));
+    }
+
+    @Test
+    void lookup_idList_doctorsFound() throws Exception {
+        MvcResult result = mockMvc.perform(post("/doctors/lookup")
+                        .content("[172456, 564134]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.indexOf("John Paul Armes") < content.indexOf("Sam Ortega"));
+        assertTrue(content.contains("\"missing\":[]"));
+    }
+
+    @Test
+    void search_combinedFilters_singleStatement() throws Exception {
+        SqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(get("/doctors/search")
+                        .param("status", "ON", "ON_CALL")
+                        .param("department", "cardiology", "orthopaedic", "dermatology")
+                        .param("name", "Pa"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertStatementBudget(1);
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("Paolo Rodriguez"));
+        assertFalse(content.contains("Alonso Flores"));
+        assertFalse(content.contains("German Ruiz"));
+    }
+
+    @Test
+    void search_noFilters_allDoctors() throws Exception {
+        MvcResult result = mockMvc.perform(get("/doctors/search"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals(doctors.size(), objectMapper.readValue(result.getResponse().getContentAsString(), Doctor[].class).length);
+    }
+
+    @Test
+    void getDoctors_fields_onlyRequestedFields() throws Exception {
+        SqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(get("/doctors").param("department", "cardiology").param("fields", "status,employeeId"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertStatementBudget(1);
+
+        assertEquals("[{\"employeeId\":356712,\"status\":\"ON_CALL\"},{\"employeeId\":761527,\"status\":\"OFF\"}]",
+                result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void getById_fields_onlyRequestedFields() throws Exception {
+        MvcResult result = mockMvc.perform(get("/doctors/{id}", doctors.get(0).getEmployeeId()).param("fields", "name"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("{\"name\":\"Alonso Flores\"}", result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void getByIds_fields_requestOrderAndMissing() throws Exception {
+        MvcResult result = mockMvc.perform(get("/doctors").param("ids", "166552,0").param("fields", "department"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("{\"found\":[{\"department\":\"pulmonary\"}],\"missing\":[0]}", result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void getDoctors_unknownField_badRequest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/doctors").param("fields", "employeeId,salary"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertEquals("Unknown field: salary", result.getResponse().getErrorMessage());
+    }
+
     @Test
     void getById_correctId_doctor() throws Exception {
         MvcResult result = mockMvc.perform(get("/doctors/{id}", doctors.get(0).getEmployeeId()))
@@ -130,6 +207,19 @@ class DoctorControllerTest {
         assertTrue(result.getResponse().getContentAsString().contains("Pepe"));
     }
 
+    @Test
+    void store_existingEmployeeId_badRequest() throws Exception {
+        DoctorDTO doctorDTO = new DoctorDTO(doctors.get(0).getEmployeeId(), "Pepe", "immunology", EmployeeStatus.OFF);
+        String body = objectMapper.writeValueAsString(doctorDTO);
+
+        mockMvc.perform(post("/doctors")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("The employeeId already exists in the system."));
+        assertEquals(doctors.get(0).getName(), doctorRepository.findById(doctors.get(0).getEmployeeId()).get().getName());
+    }
+
     @Test
     void store_incorrectIdAndStatus_badRequest() throws Exception {
         DoctorDTO doctorDTO = new DoctorDTO(null, "Pepe", "immunology", null);
@@ -165,7 +255,6 @@ class DoctorControllerTest {
 
         assertEquals(doctorRepository.findById(doctors.get(3).getEmployeeId()).get().getStatus(), EmployeeStatus.OFF);
 
-
         doctorStatusDTO.setStatus(EmployeeStatus.ON);
         body = objectMapper.writeValueAsString(doctorStatusDTO);
 
@@ -226,11 +315,102 @@ class DoctorControllerTest {
                 .andReturn();
     }
 
-    public static Date parseDate(String date) {
-        try {
-            return new SimpleDateFormat("yyyy-MM-dd").parse(date);
-        } catch (ParseException e) {
-            return null;
-        }
+    @Test
+    void getDoctors_queryBudget_singleStatement() throws Exception {
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/doctors")).andExpect(status().isOk());
+        assertStatementBudget(1);
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/doctors").param("status", "ON_CALL").param("department", "cardiology"))
+                .andExpect(status().isOk());
+        assertStatementBudget(1);
+    }
+
+    @Test
+    void getById_queryBudget_singleStatement() throws Exception {
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/doctors/{id}", doctors.get(0).getEmployeeId())).andExpect(status().isOk());
+        assertStatementBudget(1);
+    }
+
+    @Test
+    void store_queryBudget_singleInsert() throws Exception {
+        String body = objectMapper.writeValueAsString(new DoctorDTO(123456, "Pepe", "immunology", EmployeeStatus.OFF));
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(post("/doctors").content(body).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        // the change sequence is stamped after the commit
+        assertStatementBudget(1);
+    }
+
+    @Test
+    void updateStatus_queryBudget_lookupAndUpdate() throws Exception {
+        String body = objectMapper.writeValueAsString(new DoctorStatusDTO(EmployeeStatus.OFF));
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(patch("/doctors/{id}/status", doctors.get(3).getEmployeeId())
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+        // lookup and update
+        assertStatementBudget(2);
+    }
+
+    @Test
+    void updateDepartment_queryBudget_lookupAndUpdate() throws Exception {
+        String body = objectMapper.writeValueAsString(new DoctorDepartmentDTO("orthopaedic"));
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(patch("/doctors/{id}/department", doctors.get(4).getEmployeeId())
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+        // lookup and update
+        assertStatementBudget(2);
+    }
+
+    @Test
+    void getChanges_afterToken_onlyChangedDoctors() throws Exception {
+        MvcResult result = mockMvc.perform(get("/doctors/changes"))
+                .andExpect(status().isOk())
+                .andReturn();
+        ChangesDTO<Doctor> full = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        assertEquals(doctors.size(), full.getItems().size());
+        assertFalse(full.isHasMore());
+
+        mockMvc.perform(patch("/doctors/{id}/status", doctors.get(3).getEmployeeId())
+                        .content(objectMapper.writeValueAsString(new DoctorStatusDTO(EmployeeStatus.OFF)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+        awaitStamped();
+
+        SqlStatementCounter.reset();
+        result = mockMvc.perform(get("/doctors/changes").param("since", full.getToken()))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertStatementBudget(1);
+        ChangesDTO<Doctor> delta = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        assertEquals(1, delta.getItems().size());
+        assertEquals(EmployeeStatus.OFF, delta.getItems().get(0).getStatus());
+
+        result = mockMvc.perform(get("/doctors/changes").param("since", delta.getToken()))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("\"items\":[]"));
+    }
+
+    @Test
+    void getChanges_invalidToken_badRequest() throws Exception {
+        mockMvc.perform(get("/doctors/changes").param("since", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static void assertStatementBudget(long budget) {
+        long count = SqlStatementCounter.count();
+        assertTrue(count <= budget, "Expected at most " + budget + " SQL statements but " + count + " were executed");
     }
-}
\ No newline at end of file
+}
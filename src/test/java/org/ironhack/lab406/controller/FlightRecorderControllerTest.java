@@ -0,0 +1,75 @@
+package org.ironhack.lab406.controller;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "jfr.call-threshold-ms=0")
+@ActiveProfiles("memory")
+class FlightRecorderControllerTest extends HospitalFixture {
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    void dump_recordingRunning_containsServiceAndRepositoryEvents() throws Exception {
+        mockMvc.perform(post("/admin/jfr/start")).andExpect(status().isOk());
+        try {
+            mockMvc.perform(get("/doctors").param("department", "cardiology")).andExpect(status().isOk());
+
+            MvcResult result = mockMvc.perform(get("/admin/jfr/dump")).andExpect(request().asyncStarted()).andReturn();
+            byte[] dump = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsByteArray();
+            Path file = Files.createTempFile("lab406-test", ".jfr");
+            Files.write(file, dump);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            Files.delete(file);
+
+            RecordedEvent service = events.stream()
+                    .filter(event -> event.getEventType().getName().equals("org.ironhack.lab406.ServiceCall"))
+                    .filter(event -> "DoctorService.getDoctors".equals(event.getString("method")))
+                    .findFirst().orElseThrow();
+            assertEquals("GET /doctors", service.getString("endpoint"));
+            assertEquals(1, service.getInt("rows"));
+            assertTrue(service.getString("parameters").contains("cardiology"));
+
+            assertTrue(events.stream()
+                    .filter(event -> event.getEventType().getName().equals("org.ironhack.lab406.RepositoryCall"))
+                    .anyMatch(event -> "DoctorRepository.search".equals(event.getString("method"))));
+        } finally {
+            mockMvc.perform(post("/admin/jfr/stop")).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void dump_noRecording_badRequest() throws Exception {
+        mockMvc.perform(get("/admin/jfr/dump")).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,10 @@
+package org.ironhack.lab406.controller;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs every {@link PatientControllerTest} case against the embedded storage profile.
+ */
+@ActiveProfiles("memory")
+class MemoryPatientControllerTest extends PatientControllerTest {
+}
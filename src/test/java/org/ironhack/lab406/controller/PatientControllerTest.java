@@ -1,13 +1,13 @@
 package org.ironhack.lab406.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.ironhack.lab406.controller.dto.PatientDTO;
-import org.ironhack.lab406.enums.EmployeeStatus;
 import org.ironhack.lab406.model.Doctor;
 import org.ironhack.lab406.model.Patient;
-import org.ironhack.lab406.repository.DoctorRepository;
-import org.ironhack.lab406.repository.PatientRepository;
-import org.junit.jupiter.api.AfterEach;
+import org.ironhack.lab406.support.EntityLoadCounter;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.ironhack.lab406.support.SqlStatementCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,9 +18,7 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,53 +27,27 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
-class PatientControllerTest {
+class PatientControllerTest extends HospitalFixture {
     @Autowired
     private WebApplicationContext webApplicationContext;
 
-    @Autowired
-    private DoctorRepository doctorRepository;
-
-    @Autowired
-    private PatientRepository patientRepository;
-
     private MockMvc mockMvc;
     private ObjectMapper objectMapper = new ObjectMapper();
     private SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
-    private List<Doctor> doctors;
-    private List<Patient> patients;
 
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
 
-        doctors = doctorRepository.saveAll(
-                List.of(
-                        new Doctor(356712, "cardiology", "Alonso Flores", EmployeeStatus.ON_CALL),
-                        new Doctor(564134, "immunology", "Sam Ortega", EmployeeStatus.ON),
-                        new Doctor(761527, "cardiology", "German Ruiz", EmployeeStatus.OFF),
-                        new Doctor(166552, "pulmonary", "Maria Lin", EmployeeStatus.ON),
-                        new Doctor(156545, "orthopaedic", "Paolo Rodriguez", EmployeeStatus.ON_CALL),
-                        new Doctor(172456, "psychiatric", "John Paul Armes", EmployeeStatus.OFF)
-                )
-        );
-
-
-        patients = patientRepository.saveAll(
-                List.of(
-                        new Patient("Jaime Jordan", parseDate("1984-03-02"), doctors.get(1)),
-                        new Patient("Marian Garcia", parseDate("1972-01-12"), doctors.get(1)),
-                        new Patient("Julia Dusterdieck", parseDate("1954-06-11"), doctors.get(0)),
-                        new Patient("Steve McDuck", parseDate("1931-11-10"), doctors.get(2)),
-                        new Patient("Marian Garcia", parseDate("1999-02-15"), doctors.get(5))
-                )
-        );
-    }
-
-    @AfterEach
-    void tearDown() {
-        patientRepository.deleteAll();
-        doctorRepository.deleteAll();
+    @Override
+    protected List<Doctor> doctorFixture() {
+        return staff(6);
+    }
+
+    @Override
+    protected List<Patient> patientFixture(List<Doctor> doctors) {
+        return admissions(doctors);
     }
 
     @Test
@@ -110,6 +82,21 @@ class PatientControllerTest {
         assertTrue(result.getResponse().getContentAsString().contains(doctors.get(5).getEmployeeId().toString()));
     }
 
+    @Test
+    void findByIds_mixedIds_requestOrderAndMissing() throws Exception {
+        String ids = patients.get(3).getPatientId() + ",0," + patients.get(0).getPatientId();
+
+        SqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(get("/patients").param("ids", ids))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertStatementBudget(1);
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.indexOf("Steve McDuck") < content.indexOf("Jaime Jordan"));
+        assertTrue(content.contains("\"missing\":[0]"));
+    }
+
     @Test
     void findById_incorrectId_notFound() throws Exception {
         mockMvc.perform(get("/patients/{id}", 0))
@@ -128,6 +115,14 @@ class PatientControllerTest {
         assertFalse(result.getResponse().getContentAsString().contains("Steve McDuck"));
     }
 
+    @Test
+    void findBetweenDateOfBirth_missingBound_badRequest() throws Exception {
+        mockMvc.perform(get("/patients/between-date-of-birth").param("start", "1980-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/patients/between-date-of-birth").param("end", "2000-01-01").param("fields", "name"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void findByDoctorDepartment_correctDepartment_listOfPatients() throws Exception {
         MvcResult result = mockMvc.perform(get("/patients/doctor-department/{department}", "cardiology"))
@@ -138,6 +133,65 @@ class PatientControllerTest {
         assertTrue(result.getResponse().getContentAsString().contains("Steve McDuck"));
     }
 
+    @Test
+    void search_combinedFilters_singleStatement() throws Exception {
+        SqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(get("/patients/search")
+                        .param("bornFrom", "1950-01-01")
+                        .param("department", "cardiology")
+                        .param("doctorStatus", "ON_CALL"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertStatementBudget(1);
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("Julia Dusterdieck"));
+        assertFalse(content.contains("Steve McDuck"));
+        assertFalse(content.contains("Jaime Jordan"));
+    }
+
+    @Test
+    void search_unknownDepartment_emptyList() throws Exception {
+        MvcResult result = mockMvc.perform(get("/patients/search").param("department", "dermatology"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("[]", result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void findAll_fieldsWithoutDoctorColumns_noJoin() throws Exception {
+        SqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(get("/patients").param("fields", "name,admittedBy.employeeId"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertStatementBudget(1);
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("{\"name\":\"Jaime Jordan\",\"admittedBy\":{\"employeeId\":564134}}"));
+        assertFalse(content.contains("dateOfBirth"));
+        assertFalse(content.contains("Sam Ortega"));
+    }
+
+    @Test
+    void findByDoctorDepartment_fieldsWithDoctor_nestedDoctor() throws Exception {
+        SqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(get("/patients/doctor-department/{department}", "cardiology").param("fields", "patientId,admittedBy"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertStatementBudget(1);
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("\"admittedBy\":{\"employeeId\":356712,\"department\":\"cardiology\",\"name\":\"Alonso Flores\",\"status\":\"ON_CALL\"}"));
+        assertFalse(content.contains("Julia Dusterdieck"));
+    }
+
+    @Test
+    void findById_unknownField_badRequest() throws Exception {
+        mockMvc.perform(get("/patients/{id}", patients.get(0).getPatientId()).param("fields", "address"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void findOffDoctors_correctStatus_listOfPatients() throws Exception {
         MvcResult result = mockMvc.perform(get("/patients/off-doctor"))
@@ -148,6 +202,46 @@ class PatientControllerTest {
         assertTrue(result.getResponse().getContentAsString().contains("Steve McDuck"));
     }
 
+    @Test
+    void findOffDoctors_fields_onlySelectedFields() throws Exception {
+        SqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(get("/patients/off-doctor").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertStatementBudget(1);
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("{\"name\":\"Marian Garcia\"}"));
+        assertTrue(content.contains("{\"name\":\"Steve McDuck\"}"));
+        assertFalse(content.contains("Jaime Jordan"));
+    }
+
+    @Test
+    void findAll_normalizedView_doctorsSideLoaded() throws Exception {
+        MvcResult result = mockMvc.perform(get("/patients").param("view", "normalized"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("\"doctorId\":564134"));
+        assertTrue(content.contains("\"doctors\":{"));
+        assertFalse(content.contains("\"admittedBy\""));
+        assertEquals(content.indexOf("Sam Ortega"), content.lastIndexOf("Sam Ortega"));
+    }
+
+    @Test
+    void findByDoctorDepartment_normalizedMediaType_doctorsSideLoaded() throws Exception {
+        MvcResult result = mockMvc.perform(get("/patients/doctor-department/{department}", "cardiology")
+                        .accept(NormalizedPatientListAdvice.NORMALIZED_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("\"doctorId\":761527"));
+        assertTrue(content.contains("German Ruiz"));
+        assertFalse(content.contains("\"admittedBy\""));
+    }
+
     @Test
     void store_correctPatient_newPatient() throws Exception {
         PatientDTO patientDTO = new PatientDTO("Pepe", "1996-04-29", 356712);
@@ -162,6 +256,17 @@ class PatientControllerTest {
         assertTrue(result.getResponse().getContentAsString().contains("Pepe"));
     }
 
+    @Test
+    void store_existingPatient_badRequest() throws Exception {
+        PatientDTO patientDTO = new PatientDTO("Jaime Jordan", "1984-03-02", 564134);
+
+        mockMvc.perform(post("/patients")
+                        .content(objectMapper.writeValueAsString(patientDTO))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("This patient already exists in the system."));
+    }
+
     @Test
     void store_incorrectDateOfBirth_badRequest() throws Exception {
         PatientDTO patientDTO = new PatientDTO("Pepe", "1996.04.29", 356712);
@@ -184,6 +289,32 @@ class PatientControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void reassign_offDoctorDepartment_patientsMoved() throws Exception {
+        SqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(post("/patients/reassign").param("department", "cardiology"))
+                .andExpect(status().isOk())
+                .andReturn();
+        // OFF doctors, orphaned ids, receiving doctors' load and one update per receiving doctor
+        assertStatementBudget(4);
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"reassigned\":1"));
+        Patient patient = patientRepository.findById(patients.get(3).getPatientId()).get();
+        assertEquals(356712, patient.getAdmittedBy().getEmployeeId());
+    }
+
+    @Test
+    void reassign_noAvailableDoctor_badRequest() throws Exception {
+        mockMvc.perform(post("/patients/reassign").param("doctorId", "172456"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void reassign_doctorNotOff_badRequest() throws Exception {
+        mockMvc.perform(post("/patients/reassign").param("doctorId", "564134"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void update_updateDate_noContent() throws Exception {
         PatientDTO patientDTO = new PatientDTO();
@@ -285,11 +416,104 @@ class PatientControllerTest {
                 .andReturn();
     }
 
-    public static Date parseDate(String date) {
-        try {
-            return new SimpleDateFormat("yyyy-MM-dd").parse(date);
-        } catch (ParseException e) {
-            return null;
-        }
+    @Test
+    void findAll_queryBudget_singleStatement() throws Exception {
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/patients")).andExpect(status().isOk());
+        assertStatementBudget(1);
+    }
+
+    @Test
+    void findById_queryBudget_singleStatement() throws Exception {
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/patients/{id}", patients.get(4).getPatientId())).andExpect(status().isOk());
+        assertStatementBudget(1);
+    }
+
+    @Test
+    void listEndpoints_queryBudget_singleStatement() throws Exception {
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/patients/between-date-of-birth?start=1980-01-01&end=2000-01-01")).andExpect(status().isOk());
+        assertStatementBudget(1);
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/patients/doctor-department/{department}", "cardiology")).andExpect(status().isOk());
+        assertStatementBudget(1);
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/patients/off-doctor")).andExpect(status().isOk());
+        assertStatementBudget(1);
+    }
+
+    @Test
+    void store_queryBudget_lookupsAndInsert() throws Exception {
+        String body = objectMapper.writeValueAsString(new PatientDTO("Pepe", "1996-04-29", 356712));
+
+        SqlStatementCounter.reset();
+        EntityLoadCounter.reset();
+        mockMvc.perform(post("/patients").content(body).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        // doctor lookup, duplicate check and insert
+        assertStatementBudget(3);
+        // only the doctor: the duplicate check reads no patient
+        assertLoadBudget(1);
+    }
+
+    @Test
+    void update_queryBudget_lookupsAndUpdate() throws Exception {
+        PatientDTO patientDTO = new PatientDTO();
+        patientDTO.setName("Pepe");
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(put("/patients/{id}", patients.get(2).getPatientId())
+                        .content(objectMapper.writeValueAsString(patientDTO))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+        // lookup and update
+        assertStatementBudget(2);
+
+        patientDTO = new PatientDTO();
+        patientDTO.setDoctorId(564134);
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(put("/patients/{id}", patients.get(2).getPatientId())
+                        .content(objectMapper.writeValueAsString(patientDTO))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+        assertStatementBudget(3);
+    }
+
+    @Test
+    void getChanges_afterReassign_movedPatientsOnly() throws Exception {
+        MvcResult result = mockMvc.perform(get("/patients/changes"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String token = JsonPath.read(result.getResponse().getContentAsString(), "$.token");
+
+        mockMvc.perform(post("/patients/reassign").param("department", "cardiology")).andExpect(status().isOk());
+        awaitStamped();
+
+        SqlStatementCounter.reset();
+        result = mockMvc.perform(get("/patients/changes").param("since", token))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertStatementBudget(1);
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("Steve McDuck"));
+        assertFalse(content.contains("Jaime Jordan"));
+        assertFalse(content.contains("\"changeSequence\""));
+    }
+
+    // Stamping runs on its own thread just after the commit
+
+    private static void assertStatementBudget(long budget) {
+        long count = SqlStatementCounter.count();
+        assertTrue(count <= budget, "Expected at most " + budget + " SQL statements but " + count + " were executed");
+    }
+
+    private static void assertLoadBudget(long budget) {
+        long count = EntityLoadCounter.count();
+        assertTrue(count <= budget, "Expected at most " + budget + " entities read but " + count + " were loaded");
     }
 }
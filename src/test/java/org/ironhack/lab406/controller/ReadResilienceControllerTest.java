@@ -0,0 +1,177 @@
+package org.ironhack.lab406.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ironhack.lab406.controller.dto.DoctorDTO;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.service.CacheInvalidationService;
+import org.ironhack.lab406.service.ReadResilienceService;
+import org.ironhack.lab406.support.FaultInjectingDataSource;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"resilience.read.failure-threshold=1", "resilience.read.open-ms=1000", "resilience.read.max-rows=2",
+        "spring.cache.type=simple", "cache.invalidation.poll-ms=3600000"})
+@ActiveProfiles("memory")
+class ReadResilienceControllerTest extends HospitalFixture {
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private FaultInjectingDataSource database;
+    private MockMvc mockMvc;
+
+    @TestConfiguration
+    static class FaultInjection {
+        @Bean
+        static BeanPostProcessor faultInjectingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof FaultInjectingDataSource)) {
+                        return new FaultInjectingDataSource(dataSource);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        database = dataSource.unwrap(FaultInjectingDataSource.class);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.heal();
+        awaitFresh();
+    }
+
+    @Test
+    void getDoctors_databaseDown_lastGoodMarkedStale() throws Exception {
+        mockMvc.perform(get("/doctors"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(ReadResilienceService.STALE_HEADER));
+
+        database.fail();
+
+        mockMvc.perform(get("/doctors"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ReadResilienceService.STALE_HEADER, "true"))
+                .andExpect(header().exists("Age"))
+                .andExpect(content().string(containsString("Alonso Flores")));
+    }
+
+    @Test
+    void getPatients_databaseDownWithoutLastGood_serviceUnavailable() throws Exception {
+        database.fail();
+
+        mockMvc.perform(get("/patients"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void store_breakerOpen_failsFastWithoutDatabase() throws Exception {
+        mockMvc.perform(get("/doctors")).andExpect(status().isOk());
+        database.fail();
+        mockMvc.perform(get("/doctors")).andExpect(header().string(ReadResilienceService.STALE_HEADER, "true"));
+        database.heal();
+
+        String body = objectMapper.writeValueAsString(new DoctorDTO(123456, "Pepe", "immunology", EmployeeStatus.OFF));
+        mockMvc.perform(post("/doctors")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void getDoctors_databaseBack_freshAfterRefresh() throws Exception {
+        mockMvc.perform(get("/doctors")).andExpect(status().isOk());
+        database.fail();
+        mockMvc.perform(get("/doctors")).andExpect(header().string(ReadResilienceService.STALE_HEADER, "true"));
+
+        database.heal();
+
+        awaitFresh();
+    }
+
+    @Test
+    void getDoctorById_staleFallback_notCached() throws Exception {
+        mockMvc.perform(get("/doctors/{id}", 356712)).andExpect(status().isOk());
+        // Changed behind the cache's back, then evicted as a remote write would be
+        jdbcTemplate.update("update doctors set status = ? where employee_id = 356712", EmployeeStatus.OFF.getCode());
+        cacheManager.getCache(CacheInvalidationService.DOCTORS).clear();
+        database.fail();
+
+        mockMvc.perform(get("/doctors/{id}", 356712))
+                .andExpect(header().string(ReadResilienceService.STALE_HEADER, "true"))
+                .andExpect(content().string(containsString("ON_CALL")));
+
+        database.heal();
+        awaitFresh();
+        mockMvc.perform(get("/doctors/{id}", 356712))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("OFF")));
+    }
+
+    @Test
+    void getDoctors_moreRowsThanLimit_notKept() throws Exception {
+        departmentDictionary.register("pulmonary");
+        doctorRepository.save(new Doctor(166552, "pulmonary", "Maria Lin", EmployeeStatus.ON));
+        mockMvc.perform(get("/doctors")).andExpect(status().isOk());
+        database.fail();
+
+        mockMvc.perform(get("/doctors"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    // Once the open period is over, a read probes the database and closes the breaker
+    private void awaitFresh() throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            MvcResult result = mockMvc.perform(get("/doctors")).andReturn();
+            if (result.getResponse().getStatus() == 200 && result.getResponse().getHeader(ReadResilienceService.STALE_HEADER) == null) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Reads are still served stale after the database came back");
+    }
+}
@@ -0,0 +1,79 @@
+package org.ironhack.lab406.controller;
+
+import org.ironhack.lab406.monitoring.SqlTraceFilter;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "sql.slow-threshold-ms=0")
+@ActiveProfiles("memory")
+class SqlMonitorControllerTest extends HospitalFixture {
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private SqlTraceFilter sqlTraceFilter;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).addFilters(sqlTraceFilter).build();
+    }
+
+    @Test
+    void getDoctors_anyRequest_serverTimingHeader() throws Exception {
+        mockMvc.perform(get("/doctors").param("department", "cardiology"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlTraceFilter.HEADER, matchesPattern("db;desc=\"1 statements\";dur=\\d+\\.\\d{2}")));
+    }
+
+    @Test
+    void getById_reactive_workerStatementsInServerTimingHeader() throws Exception {
+        dispatch("/reactive/doctors/{id}", 564134)
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlTraceFilter.HEADER, matchesPattern("db;desc=\"[1-9]\\d* statements\";dur=\\d+\\.\\d{2}")));
+    }
+
+    @Test
+    void getDoctors_reactiveStream_queryInServerTimingHeader() throws Exception {
+        dispatch("/reactive/doctors?department=cardiology")
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlTraceFilter.HEADER, matchesPattern("db;desc=\"[1-9]\\d* statements\";dur=\\d+\\.\\d{2}")));
+    }
+
+    @Test
+    void getSlowStatements_thresholdZero_statementsKeptWithoutParameters() throws Exception {
+        mockMvc.perform(get("/doctors").param("department", "cardiology")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/admin/sql/slow"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"endpoint\":\"GET /doctors\"")))
+                .andExpect(content().string(not(containsString("cardiology"))));
+    }
+
+    private ResultActions dispatch(String url, Object... variables) throws Exception {
+        MvcResult result = mockMvc.perform(get(url, variables))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
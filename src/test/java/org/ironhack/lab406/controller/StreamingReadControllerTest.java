@@ -0,0 +1,185 @@
+package org.ironhack.lab406.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.service.StreamingReadService;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"streaming.flush-rows=1", "streaming.page-rows=2"})
+@ActiveProfiles("memory")
+class StreamingReadControllerTest extends HospitalFixture {
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private StreamingReadService streamingReadService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Override
+    protected List<Doctor> doctorFixture() {
+        return staff(3);
+    }
+
+    @Override
+    protected List<Patient> patientFixture(List<Doctor> doctors) {
+        return List.of(
+                new Patient("Jaime Jordan", Date.valueOf("1984-03-02"), doctors.get(1)),
+                new Patient("Marian Garcia", Date.valueOf("1972-01-12"), doctors.get(1)),
+                new Patient("Julia Dusterdieck", Date.valueOf("1954-06-11"), doctors.get(0)),
+                new Patient("Steve McDuck", Date.valueOf("1931-11-10"), doctors.get(2))
+        );
+    }
+
+    @Test
+    void getDoctors_byDepartment_oneDoctorPerLine() throws Exception {
+        List<JsonNode> doctors = lines(dispatch("/reactive/doctors?department=cardiology")
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON)));
+
+        assertEquals(2, doctors.size());
+        assertTrue(doctors.stream().allMatch(doctor -> doctor.get("department").asText().equals("cardiology")));
+    }
+
+    @Test
+    void getDoctors_unknownDepartment_emptyStream() throws Exception {
+        assertEquals(0, lines(dispatch("/reactive/doctors?department=dermatology").andExpect(status().isOk())).size());
+    }
+
+    @Test
+    void findAll_morePatientsThanFlushRows_everyPatientStreamedWithDoctor() throws Exception {
+        List<JsonNode> patients = lines(dispatch("/reactive/patients").andExpect(status().isOk()));
+
+        assertEquals(4, patients.size());
+        assertTrue(patients.stream().allMatch(patient -> patient.get("admittedBy").hasNonNull("name")));
+    }
+
+    @Test
+    void findByDoctorStatus_offDoctors_streamed() throws Exception {
+        List<JsonNode> patients = lines(dispatch("/reactive/patients/off-doctor").andExpect(status().isOk()));
+
+        assertEquals(1, patients.size());
+        assertEquals("Steve McDuck", patients.get(0).get("name").asText());
+    }
+
+    @Test
+    void getById_async_sameAsBlockingEndpoint() throws Exception {
+        dispatch("/reactive/doctors/{id}", 564134)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Sam Ortega"));
+        dispatch("/reactive/doctors/{id}", 1)
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findAll_stalledClient_noConnectionHeldBetweenPages() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        // A client that stops reading after the first row
+        OutputStream stalledClient = new OutputStream() {
+            @Override
+            public void write(int b) {
+                written.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written.write(b, off, len);
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        CompletableFuture<Void> open = CompletableFuture.runAsync(() -> {
+            try {
+                streamingReadService.streamPatients().writeTo(stalledClient);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+            assertTrue(awaitNoActiveConnections());
+        } finally {
+            release.countDown();
+        }
+        open.get(10, TimeUnit.SECONDS);
+
+        assertEquals(4, written.toString().split("\n").length);
+    }
+
+    // Async handlers return right away; the response is written by the dispatch after the streaming executor is done
+    private ResultActions dispatch(String url, Object... variables) throws Exception {
+        MvcResult result = mockMvc.perform(get(url, variables))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    // Background jobs take a connection now and then, so wait for a moment without any
+    private boolean awaitNoActiveConnections() throws Exception {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.getActiveConnections() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        return pool.getActiveConnections() == 0;
+    }
+
+    private List<JsonNode> lines(ResultActions actions) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : actions.andReturn().getResponse().getContentAsString().split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,46 @@
+package org.ironhack.lab406.monitoring;
+
+import org.ironhack.lab406.controller.dto.SlowStatementDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlObserverTest {
+
+    @Test
+    void redact_inlinedLiterals_masked() {
+        assertEquals("select * from doctors d1_0 where d1_0.department = ? and d1_0.employee_id in (?, ?)",
+                SqlObserver.redact("select * from doctors d1_0 where d1_0.department = 'O''Brien' and d1_0.employee_id in (356712, 564134)"));
+    }
+
+    @Test
+    void executed_moreSlowStatementsThanSlots_keepsNewestFirst() {
+        SqlObserver observer = new SqlObserver(0, 2);
+        observer.executed("select 1", 1_000_000);
+        observer.executed("select 2", 1_000_000);
+        observer.executed("select 3", 1_000_000);
+
+        List<SlowStatementDTO> slow = observer.getSlowStatements();
+        assertEquals(2, slow.size());
+        assertEquals("select ?", slow.get(0).getSql());
+        assertEquals(1.0, slow.get(1).getDurationMs());
+    }
+
+    @Test
+    void executed_underThreshold_countedButNotKept() {
+        SqlObserver observer = new SqlObserver(1000, 10);
+        SqlObserver.Trace trace = observer.begin("GET /doctors");
+        try {
+            observer.executed("select 1", 1_000_000);
+            observer.executed("select 2", 1_000_000);
+        } finally {
+            observer.end();
+        }
+
+        assertEquals(2, trace.getCount());
+        assertEquals("db;desc=\"2 statements\";dur=2.00", trace.serverTiming());
+        assertEquals(0, observer.getSlowStatements().size());
+    }
+}
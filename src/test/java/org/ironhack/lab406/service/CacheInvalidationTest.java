@@ -0,0 +1,119 @@
+package org.ironhack.lab406.service;
+
+import org.ironhack.lab406.Application;
+import org.ironhack.lab406.config.TenantContext;
+import org.ironhack.lab406.config.TenantKeyGenerator;
+import org.ironhack.lab406.controller.dto.DoctorDTO;
+import org.ironhack.lab406.controller.dto.DoctorStatusDTO;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.repository.DoctorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Two application nodes in one JVM sharing embedded databases, each with its own local cache.
+ */
+class CacheInvalidationTest {
+    private static final String H2_OPTIONS = ";DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+    private static final String[] NODE_ARGS = {
+            "--spring.datasource.url=jdbc:h2:mem:cluster" + H2_OPTIONS,
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--spring.main.web-application-type=none",
+            "--spring.cache.type=simple",
+            "--cache.invalidation.poll-ms=100"
+    };
+    private static final String[] TENANT_ARGS = {
+            "--tenants.datasources.hospital-a.url=jdbc:h2:mem:cluster-hospital-a" + H2_OPTIONS,
+            "--tenants.datasources.hospital-b.url=jdbc:h2:mem:cluster-hospital-b" + H2_OPTIONS
+    };
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void updateStatus_onOtherNode_cachedDoctorRefreshedWithinPollInterval() throws InterruptedException {
+        nodeA = new SpringApplicationBuilder(Application.class).profiles("memory").run(NODE_ARGS);
+        nodeB = new SpringApplicationBuilder(Application.class).profiles("memory").run(NODE_ARGS);
+        try {
+            assertRefreshedOnOtherNode();
+        } finally {
+            nodeA.getBean(DoctorRepository.class).deleteAll();
+        }
+    }
+
+    @Test
+    void updateStatus_onOtherNodeForHospital_cachedDoctorRefreshedWithinPollInterval() throws InterruptedException {
+        nodeA = new SpringApplicationBuilder(Application.class).profiles("tenants").run(tenantArgs(true));
+        // The second node must not recreate the hospital schemas the first one already uses
+        nodeB = new SpringApplicationBuilder(Application.class).profiles("tenants").run(tenantArgs(false));
+        TenantContext.set("hospital-a");
+        try {
+            assertRefreshedOnOtherNode();
+        } finally {
+            nodeA.getBean(DoctorRepository.class).deleteAll();
+        }
+    }
+
+    @Test
+    void updateStatus_onOtherNode_otherCachedDoctorsKept() throws InterruptedException {
+        nodeA = new SpringApplicationBuilder(Application.class).profiles("memory").run(NODE_ARGS);
+        nodeB = new SpringApplicationBuilder(Application.class).profiles("memory").run(NODE_ARGS);
+        try {
+            DoctorService serviceA = nodeA.getBean(DoctorService.class);
+            serviceA.store(new DoctorDTO(564134, "Sam Ortega", "immunology", EmployeeStatus.ON));
+            assertRefreshedOnOtherNode();
+            serviceA.getDoctorById(564134);
+
+            nodeB.getBean(DoctorService.class).updateStatus(356712, new DoctorStatusDTO(EmployeeStatus.ON));
+            awaitStatus(serviceA, 356712, EmployeeStatus.ON);
+
+            Cache doctors = nodeA.getBean(CacheManager.class).getCache(CacheInvalidationService.DOCTORS);
+            assertNotNull(doctors.get(TenantKeyGenerator.key(null, 564134)));
+        } finally {
+            nodeA.getBean(DoctorRepository.class).deleteAll();
+        }
+    }
+
+    private static String[] tenantArgs(boolean initializeSchema) {
+        List<String> args = new ArrayList<>(List.of(NODE_ARGS));
+        args.addAll(List.of(TENANT_ARGS));
+        args.add("--tenants.initialize-schema=" + initializeSchema);
+        return args.toArray(String[]::new);
+    }
+
+    private void assertRefreshedOnOtherNode() throws InterruptedException {
+        DoctorService serviceA = nodeA.getBean(DoctorService.class);
+        DoctorService serviceB = nodeB.getBean(DoctorService.class);
+
+        serviceA.store(new DoctorDTO(356712, "Alonso Flores", "cardiology", EmployeeStatus.ON_CALL));
+        assertEquals(EmployeeStatus.ON_CALL, serviceA.getDoctorById(356712).getStatus());
+
+        serviceB.updateStatus(356712, new DoctorStatusDTO(EmployeeStatus.OFF));
+        awaitStatus(serviceA, 356712, EmployeeStatus.OFF);
+    }
+
+    private static void awaitStatus(DoctorService service, int id, EmployeeStatus status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (service.getDoctorById(id).getStatus() != status && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(status, service.getDoctorById(id).getStatus());
+    }
+}
@@ -0,0 +1,59 @@
+package org.ironhack.lab406.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClockCacheTest {
+
+    @Test
+    void put_overMaxEntries_unusedEntryEvicted() {
+        ClockCache<Integer, String> cache = new ClockCache<>(2);
+        cache.put(1, "Alonso Flores");
+        cache.put(2, "Sam Ortega");
+        cache.get(1);
+
+        cache.put(3, "German Ruiz");
+
+        assertEquals(2, cache.size());
+        assertEquals("Alonso Flores", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("German Ruiz", cache.get(3));
+    }
+
+    @Test
+    void put_overMaxWeight_evictedUntilWithinWeight() {
+        ClockCache<Integer, List<String>> cache = new ClockCache<>(10, 3, List::size);
+        cache.put(1, List.of("Alonso Flores", "Sam Ortega"));
+        cache.put(2, List.of("German Ruiz", "Paolo Rodriguez"));
+
+        assertEquals(1, cache.size());
+        assertTrue(cache.weight() <= 3);
+    }
+
+    @Test
+    void put_valueHeavierThanCache_notStoredAndOlderValueDropped() {
+        ClockCache<Integer, List<String>> cache = new ClockCache<>(10, 1, List::size);
+        cache.put(1, List.of("Alonso Flores"));
+
+        assertFalse(cache.put(1, List.of("Alonso Flores", "Sam Ortega")));
+
+        assertNull(cache.get(1));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void removeIf_matchingValues_onlyThoseRemoved() {
+        ClockCache<Integer, String> cache = new ClockCache<>(10, 100, String::length);
+        cache.put(1, "Alonso Flores");
+        cache.put(2, "Sam Ortega");
+
+        cache.removeIf(name -> name.startsWith("Sam"));
+
+        assertEquals("Alonso Flores", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("Alonso Flores".length(), cache.weight());
+    }
+}
@@ -0,0 +1,177 @@
+package org.ironhack.lab406.service;
+
+import org.ironhack.lab406.controller.dto.ChangesDTO;
+import org.ironhack.lab406.controller.dto.DoctorDTO;
+import org.ironhack.lab406.controller.dto.PatientDTO;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.support.HospitalFixture;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent doctor and patient writes against the embedded database. Checks that racing writes stay correct (one
+ * doctor per employeeId, no lost updates, no write skipped by a delta-sync client) on every build. Throughput is logged, and
+ * only checked when {@code -Dstress.min-writes-per-second} is set, since a loaded build machine can't promise a rate.
+ */
+@SpringBootTest
+@ActiveProfiles("memory")
+class ConcurrentWriteStressTest extends HospitalFixture {
+    private static final int THREADS = 8;
+    private static final int WRITES_PER_THREAD = 50;
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentWriteStressTest.class);
+    private static final String MIN_WRITES_PER_SECOND = System.getProperty("stress.min-writes-per-second");
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Override
+    protected List<Doctor> doctorFixture() {
+        return List.of();
+    }
+
+    @Test
+    void store_sameEmployeeIdFromEveryThread_exactlyOneCreated() throws Exception {
+        List<Boolean> created = runConcurrently(thread -> () -> {
+            try {
+                doctorService.store(new DoctorDTO(356712, "Doctor " + thread, "cardiology", EmployeeStatus.ON_CALL));
+                return true;
+            } catch (ResponseStatusException e) {
+                assertEquals("The employeeId already exists in the system.", e.getReason());
+                return false;
+            }
+        });
+
+        assertEquals(1, created.stream().filter(Boolean::booleanValue).count());
+        assertEquals(1, doctorRepository.count());
+    }
+
+    @Test
+    void store_distinctDoctors_allSeenByDeltaSyncClient() throws Exception {
+        // A client following the change feed while the writes run must end up with every doctor
+        Set<Integer> synced = ConcurrentHashMap.newKeySet();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CompletableFuture<String> client = CompletableFuture.supplyAsync(() -> {
+            Optional<String> token = Optional.empty();
+            while (writing.get()) {
+                token = Optional.of(sync(token, synced));
+            }
+            return token.orElse(null);
+        });
+
+        long start = System.nanoTime();
+        try {
+            runConcurrently(thread -> () -> {
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    doctorService.store(new DoctorDTO(100_000 + thread * 1_000 + i, "Doctor " + i, "cardiology", EmployeeStatus.ON));
+                }
+                return null;
+            });
+        } finally {
+            writing.set(false);
+        }
+        report("doctor inserts", THREADS * WRITES_PER_THREAD, start);
+
+        awaitStamped();
+        sync(Optional.ofNullable(client.get(60, TimeUnit.SECONDS)), synced);
+        assertEquals(THREADS * WRITES_PER_THREAD, doctorRepository.count());
+        assertEquals(THREADS * WRITES_PER_THREAD, synced.size());
+    }
+
+    @Test
+    void storeAndUpdatePatients_concurrently_noLostWrites() throws Exception {
+        doctorService.store(new DoctorDTO(356712, "Alonso Flores", "cardiology", EmployeeStatus.ON));
+        doctorService.store(new DoctorDTO(564134, "Sam Ortega", "cardiology", EmployeeStatus.ON));
+
+        long start = System.nanoTime();
+        runConcurrently(thread -> () -> {
+            List<Integer> admitted = new ArrayList<>();
+            for (int i = 0; i < WRITES_PER_THREAD / 2; i++) {
+                admitted.add(patientService.store(new PatientDTO("Patient " + thread + "-" + i, "1980-01-01", 356712)).getPatientId());
+            }
+            for (Integer id : admitted) {
+                patientService.update(id, new PatientDTO(null, null, 564134));
+            }
+            return null;
+        });
+        report("patient admissions and updates", THREADS * (WRITES_PER_THREAD / 2) * 2, start);
+
+        List<Patient> patients = patientRepository.findAll();
+        assertEquals(THREADS * (WRITES_PER_THREAD / 2), patients.size());
+        assertTrue(patients.stream().allMatch(patient -> patient.getAdmittedBy().getEmployeeId() == 564134));
+        awaitStamped();
+        assertTrue(patientRepository.findAll().stream().allMatch(patient -> patient.getChangeSequence() > 0));
+    }
+
+    // Reads the change feed from token to its end, the way a syncing client does
+    private String sync(Optional<String> token, Set<Integer> synced) {
+        ChangesDTO<Doctor> changes;
+        do {
+            changes = doctorService.getChanges(token);
+            changes.getItems().forEach(doctor -> synced.add(doctor.getEmployeeId()));
+            token = Optional.of(changes.getToken());
+        } while (changes.isHasMore());
+        return changes.getToken();
+    }
+
+    // Starts every thread at once to maximize contention
+    private static <T> List<T> runConcurrently(IntFunction<Callable<T>> work) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                Callable<T> task = work.apply(thread);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void report(String label, int writes, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        double writesPerSecond = writes / seconds;
+        log.info("{}: threads={} writes={} time={} s {} writes/s", label, THREADS, writes, String.format("%.3f", seconds), String.format("%.1f", writesPerSecond));
+        if (MIN_WRITES_PER_SECOND != null) {
+            double minimum = Double.parseDouble(MIN_WRITES_PER_SECOND);
+            assertTrue(writesPerSecond >= minimum, "Expected at least " + minimum + " writes/s but got " + writesPerSecond);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.ironhack.lab406.service;
+
+import org.ironhack.lab406.controller.dto.DoctorDTO;
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.repository.DoctorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+class DepartmentDictionaryTest {
+    @Autowired
+    private DepartmentDictionary departmentDictionary;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void save_doctor_departmentStoredAsCode() {
+        short code = departmentDictionary.register("cardiology");
+        doctorRepository.save(new Doctor(356712, "cardiology", "Alonso Flores", EmployeeStatus.ON_CALL));
+
+        assertEquals(code, jdbcTemplate.queryForObject("select department_id from doctors where employee_id = 356712", Short.class));
+        assertEquals(EmployeeStatus.ON_CALL.getCode(), jdbcTemplate.queryForObject("select status from doctors where employee_id = 356712", Byte.class));
+        assertSame(departmentDictionary.nameOf(code), doctorRepository.findById(356712).orElseThrow().getDepartment());
+    }
+
+    @Test
+    void getDoctors_unknownDepartment_emptyAndNotRegistered() {
+        assertEquals(List.of(), doctorService.getDoctors(Optional.empty(), Optional.of("dermatology")));
+
+        assertTrue(departmentDictionary.find("dermatology").isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from departments where name = 'dermatology'", Integer.class));
+    }
+
+    @Test
+    void save_unregisteredDepartment_rejected() {
+        assertThrows(RuntimeException.class,
+                () -> doctorRepository.saveAndFlush(new Doctor(356712, "neurology", "Alonso Flores", EmployeeStatus.ON_CALL)));
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from departments where name = 'neurology'", Integer.class));
+    }
+
+    @Test
+    void store_newDepartment_registered() {
+        doctorService.store(new DoctorDTO(356712, "Alonso Flores", "oncology", EmployeeStatus.ON_CALL));
+
+        assertTrue(departmentDictionary.find("oncology").isPresent());
+        assertEquals(List.of(356712), doctorService.getDoctors(Optional.empty(), Optional.of("oncology")).stream().map(Doctor::getEmployeeId).toList());
+    }
+
+    @Test
+    void register_inRolledBackTransaction_notRegistered() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            departmentDictionary.register("hematology");
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from departments where name = 'hematology'", Integer.class));
+        assertTrue(departmentDictionary.find("hematology").isEmpty());
+    }
+
+    @Test
+    void register_inOpenTransaction_othersSeeItAfterCommit() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            short code = departmentDictionary.register("nephrology");
+
+            assertEquals(code, departmentDictionary.find("nephrology").orElseThrow());
+            assertTrue(CompletableFuture.supplyAsync(() -> departmentDictionary.find("nephrology")).join().isEmpty());
+        });
+
+        assertTrue(CompletableFuture.supplyAsync(() -> departmentDictionary.find("nephrology")).get().isPresent());
+    }
+
+    @Test
+    void find_unknownDepartment_tableNotReloadedWithinInterval() {
+        departmentDictionary.find("radiology");
+        jdbcTemplate.update("insert into departments (name) values ('radiology')");
+
+        assertTrue(departmentDictionary.find("radiology").isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package org.ironhack.lab406.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private static final int CALLERS = 16;
+
+    private final SingleFlight<String, List<String>> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @Test
+    void execute_concurrentIdenticalCalls_loaderRunsOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> result = List.of("Alonso Flores");
+
+        List<Future<List<String>>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(executor.submit(() -> singleFlight.execute("cardiology", () -> {
+                executions.incrementAndGet();
+                await(release);
+                return result;
+            })));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<List<String>> call : calls) {
+            assertSame(result, call.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_loaderFails_allWaitersSeeException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<List<String>>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(executor.submit(() -> singleFlight.execute("off-doctor", () -> {
+                await(release);
+                throw new IllegalStateException("Database unavailable");
+            })));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<List<String>> call : calls) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_afterCompletion_loaderRunsAgain() {
+        AtomicInteger executions = new AtomicInteger();
+
+        singleFlight.execute("cardiology", () -> List.of(String.valueOf(executions.incrementAndGet())));
+        List<String> second = singleFlight.execute("cardiology", () -> List.of(String.valueOf(executions.incrementAndGet())));
+
+        assertEquals(List.of("2"), second);
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
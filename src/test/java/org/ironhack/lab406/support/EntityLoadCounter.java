@@ -0,0 +1,27 @@
+package org.ironhack.lab406.support;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Counts the entities Hibernate loads on the current thread, one per row read into an entity.
+ * Registered through {@code hibernate.session_factory.interceptor} in the test properties, next to
+ * {@link SqlStatementCounter}: a budget of statements alone doesn't catch one statement reading a whole table.
+ */
+public class EntityLoadCounter implements Interceptor {
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        COUNT.get()[0]++;
+        return false;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static long count() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,46 @@
+package org.ironhack.lab406.support;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Wraps the application DataSource so a test can take the database down: between {@link #fail()} and
+ * {@link #heal()} every connection request is refused, the way a pool reports a database it can't reach.
+ */
+public class FaultInjectingDataSource extends DelegatingDataSource {
+    private volatile boolean failing;
+
+    public FaultInjectingDataSource(DataSource target) {
+        super(target);
+    }
+
+    public void fail() {
+        failing = true;
+    }
+
+    public void heal() {
+        failing = false;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        check();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        check();
+        return super.getConnection(username, password);
+    }
+
+    private void check() throws SQLException {
+        if (failing) {
+            throw new SQLTransientConnectionException("Injected fault: database unavailable");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.ironhack.lab406.support;
+
+import org.ironhack.lab406.enums.EmployeeStatus;
+import org.ironhack.lab406.model.Doctor;
+import org.ironhack.lab406.model.Patient;
+import org.ironhack.lab406.repository.DoctorRepository;
+import org.ironhack.lab406.repository.PatientRepository;
+import org.ironhack.lab406.service.DepartmentDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Base of the Spring tests that start every case from the same few doctors and patients. Before each test the
+ * departments of {@link #doctorFixture()} are registered and its doctors saved, then the patients of
+ * {@link #patientFixture(List)}; after it both tables are emptied. The defaults are two doctors and no patients.
+ */
+public abstract class HospitalFixture {
+    @Autowired
+    protected DepartmentDictionary departmentDictionary;
+
+    @Autowired
+    protected DoctorRepository doctorRepository;
+
+    @Autowired
+    protected PatientRepository patientRepository;
+
+    protected List<Doctor> doctors;
+    protected List<Patient> patients;
+
+    @BeforeEach
+    void saveFixture() {
+        List<Doctor> fixture = doctorFixture();
+        fixture.stream().map(Doctor::getDepartment).distinct().forEach(departmentDictionary::register);
+        doctors = doctorRepository.saveAll(fixture);
+        patients = patientRepository.saveAll(patientFixture(doctors));
+    }
+
+    @AfterEach
+    void deleteFixture() {
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    protected List<Doctor> doctorFixture() {
+        return staff(2);
+    }
+
+    protected List<Patient> patientFixture(List<Doctor> doctors) {
+        return List.of();
+    }
+
+    /**
+     * The first {@code count} of six doctors covering every department and status.
+     */
+    protected static List<Doctor> staff(int count) {
+        return List.of(
+                new Doctor(356712, "cardiology", "Alonso Flores", EmployeeStatus.ON_CALL),
+                new Doctor(564134, "immunology", "Sam Ortega", EmployeeStatus.ON),
+                new Doctor(761527, "cardiology", "German Ruiz", EmployeeStatus.OFF),
+                new Doctor(166552, "pulmonary", "Maria Lin", EmployeeStatus.ON),
+                new Doctor(156545, "orthopaedic", "Paolo Rodriguez", EmployeeStatus.ON_CALL),
+                new Doctor(172456, "psychiatric", "John Paul Armes", EmployeeStatus.OFF)
+        ).subList(0, count);
+    }
+
+    /**
+     * Five patients of the doctors of {@code staff(6)}, two of them named alike.
+     */
+    protected static List<Patient> admissions(List<Doctor> doctors) {
+        return List.of(
+                new Patient("Jaime Jordan", parseDate("1984-03-02"), doctors.get(1)),
+                new Patient("Marian Garcia", parseDate("1972-01-12"), doctors.get(1)),
+                new Patient("Julia Dusterdieck", parseDate("1954-06-11"), doctors.get(0)),
+                new Patient("Steve McDuck", parseDate("1931-11-10"), doctors.get(2)),
+                new Patient("Marian Garcia", parseDate("1999-02-15"), doctors.get(5))
+        );
+    }
+
+    // Writes show up in the change feed once their change sequence is stamped, right after the commit
+    protected void awaitStamped() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (doctorRepository.existsByChangeSequenceIsNull() || patientRepository.existsByChangeSequenceIsNull()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Change sequences not stamped");
+            Thread.sleep(10);
+        }
+    }
+
+    public static Date parseDate(String date) {
+        try {
+            return new SimpleDateFormat("yyyy-MM-dd").parse(date);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(date, e);
+        }
+    }
+}
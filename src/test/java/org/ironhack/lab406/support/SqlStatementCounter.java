@@ -0,0 +1,28 @@
+package org.ironhack.lab406.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ * Registered through {@code hibernate.session_factory.statement_inspector} in the test properties,
+ * so MockMvc requests (which run on the test thread) can be checked against a query budget
+ * without background jobs skewing the numbers.
+ */
+public class SqlStatementCounter implements StatementInspector {
+    private static final long serialVersionUID = 1L;
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static long count() {
+        return COUNT.get()[0];
+    }
+}